@@ -1,8 +1,86 @@
 // SistemaGestaoEducacional.java
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Random;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
 
 // ==================== PACOTE: DOMÍNIO (CORE BUSINESS) ====================
 // Nenhum System.out.println aqui - apenas lógica de negócio pura
@@ -127,30 +205,90 @@ class Turma {
     private final String codigo;
     private final Professor professor;
     private final Curso curso;
-    private final List<Aluno> alunos;
+    // Roster por matrícula, na ordem de matrícula: pertinência e inclusão em O(1)
+    private final Map<String, Aluno> alunos;
+    // Roster restaurado sob demanda: matrículas resolvidas apenas no primeiro acesso aos alunos
+    private List<String> matriculasPendentes;
+    private Function<String, Aluno> resolvedorAlunos;
     
     public Turma(String codigo, Professor professor, Curso curso) {
         this.codigo = codigo;
         this.professor = professor;
         this.curso = curso;
-        this.alunos = new ArrayList<>();
+        this.alunos = new LinkedHashMap<>();
     }
     
-    public void adicionarAluno(Aluno aluno) {
-        if (!alunos.contains(aluno)) {
-            alunos.add(aluno);
+    void adiarAlunos(List<String> matriculas, Function<String, Aluno> resolvedor) {
+        this.matriculasPendentes = matriculas;
+        this.resolvedorAlunos = resolvedor;
+    }
+    
+    private synchronized Map<String, Aluno> alunos() {
+        if (matriculasPendentes != null) {
+            for (String matricula : matriculasPendentes) {
+                Aluno aluno = resolvedorAlunos.apply(matricula);
+                if (aluno != null) {
+                    alunos.putIfAbsent(aluno.getMatricula(), aluno);
+                }
+            }
+            matriculasPendentes = null;
+            resolvedorAlunos = null;
+        }
+        return alunos;
+    }
+    
+    // O roster é protegido pelo monitor da turma: o snapshot pode copiá-lo enquanto outra thread matricula
+    public synchronized void adicionarAluno(Aluno aluno) {
+        alunos().putIfAbsent(aluno.getMatricula(), aluno);
+    }
+    
+    // Adiciona vários alunos de uma vez, ignorando os já matriculados
+    public synchronized void adicionarAlunos(Collection<Aluno> novos) {
+        Map<String, Aluno> roster = alunos();
+        for (Aluno aluno : novos) {
+            roster.putIfAbsent(aluno.getMatricula(), aluno);
         }
     }
     
-    public void removerAluno(Aluno aluno) {
-        alunos.remove(aluno);
+    public synchronized void removerAluno(Aluno aluno) {
+        alunos().remove(aluno.getMatricula());
+    }
+    
+    public synchronized boolean contemAluno(String matricula) {
+        return matricula != null && alunos().containsKey(matricula);
+    }
+    
+    // Aluno matriculado com a matrícula informada, ou null
+    public synchronized Aluno buscarAluno(String matricula) {
+        return matricula == null ? null : alunos().get(matricula);
     }
     
     public String getCodigo() { return codigo; }
     public Professor getProfessor() { return professor; }
     public Curso getCurso() { return curso; }
-    public List<Aluno> getAlunos() { return new ArrayList<>(alunos); }
-    public int getQuantidadeAlunos() { return alunos.size(); }
+    public synchronized List<Aluno> getAlunos() { return new ArrayList<>(alunos().values()); }
+    // Percorre o roster sem copiá-lo, com o monitor da turma: a ação não deve travar outros objetos
+    public synchronized void paraCadaAluno(Consumer<? super Aluno> acao) {
+        alunos().values().forEach(acao);
+    }
+    public synchronized int getQuantidadeAlunos() { return alunos().size(); }
+    // Cursor por posição no roster; a página é alcançada percorrendo os alunos anteriores
+    public synchronized Pagina<Aluno> listarPaginaAlunos(String cursor, int tamanho) {
+        Pagina.validarTamanho(tamanho);
+        Map<String, Aluno> roster = alunos();
+        long inicio = Pagina.decodificarCursor(cursor);
+        List<Aluno> itens = new ArrayList<>(tamanho);
+        long posicao = 0;
+        for (Aluno aluno : roster.values()) {
+            if (posicao >= inicio + tamanho) break;
+            if (posicao >= inicio) {
+                itens.add(aluno);
+            }
+            posicao++;
+        }
+        long fim = inicio + itens.size();
+        return new Pagina<>(itens, fim < roster.size() ? Pagina.codificarCursor(fim) : null);
+    }
     
     @Override
     public boolean equals(Object obj) {
@@ -172,6 +310,8 @@ class Avaliacao {
     private final String descricao;
     private final String tipo; // "Prova", "Trabalho", "Seminário", etc.
     private final double peso; // Peso da avaliação (0.0 a 1.0)
+    // Quem mantém agregados sobre esta nota; criada só quando a avaliação entra em alguma média
+    private List<OuvinteNota> ouvintes;
     
     public Avaliacao(String descricao, String tipo, double peso) {
         this.descricao = descricao;
@@ -184,7 +324,20 @@ class Avaliacao {
         if (valor < 0 || valor > 10) {
             throw new IllegalArgumentException("Nota deve estar entre 0 e 10");
         }
+        double anterior = this.nota;
         this.nota = valor;
+        if (ouvintes != null && anterior != valor) {
+            for (OuvinteNota ouvinte : ouvintes) {
+                ouvinte.aoAlterarNota(this, anterior);
+            }
+        }
+    }
+    
+    void adicionarOuvinte(OuvinteNota ouvinte) {
+        if (ouvintes == null) {
+            ouvintes = new ArrayList<>(1);
+        }
+        ouvintes.add(ouvinte);
     }
     
     public double getNota() { return nota; }
@@ -194,51 +347,222 @@ class Avaliacao {
     public double getNotaPonderada() { return nota * peso; }
 }
 
+// Observa mudanças de nota de uma avaliação; chamado depois da nova nota ser atribuída
+interface OuvinteNota {
+    void aoAlterarNota(Avaliacao avaliacao, double notaAnterior);
+}
+
+// Média ponderada mantida incrementalmente: as somas de notas ponderadas e de pesos são acumuladas a
+// cada avaliação adicionada, e a média é lida sem percorrer as avaliações. Uma nota alterada refaz as
+// somas a partir das avaliações em vez de aplicar a diferença, que acumularia erro de arredondamento a
+// cada alteração; assim as somas são sempre as mesmas de um cálculo do zero.
+// Ouvintes de média são avisados depois de cada mudança (ex.: agregados da turma).
+final class MediaPonderada implements OuvinteNota {
+    private final List<Avaliacao> avaliacoes = new ArrayList<>();
+    private double somaNotasPonderadas;
+    private double somaPesos;
+    private List<Runnable> ouvintes;
+    
+    void adicionar(Avaliacao avaliacao) {
+        avaliacoes.add(avaliacao);
+        somaNotasPonderadas += avaliacao.getNotaPonderada();
+        somaPesos += avaliacao.getPeso();
+        avaliacao.adicionarOuvinte(this);
+        avisarOuvintes();
+    }
+    
+    // Retira uma avaliação adicionada (lançamento desfeito); as somas são refeitas como numa nota alterada
+    void remover(Avaliacao avaliacao) {
+        int posicao = avaliacoes.lastIndexOf(avaliacao);
+        if (posicao < 0) return;
+        avaliacoes.remove(posicao);
+        aoAlterarNota(avaliacao, avaliacao.getNota());
+    }
+    
+    @Override
+    public void aoAlterarNota(Avaliacao avaliacao, double notaAnterior) {
+        double notas = 0.0;
+        double pesos = 0.0;
+        for (Avaliacao a : avaliacoes) {
+            notas += a.getNotaPonderada();
+            pesos += a.getPeso();
+        }
+        somaNotasPonderadas = notas;
+        somaPesos = pesos;
+        avisarOuvintes();
+    }
+    
+    void adicionarOuvinte(Runnable ouvinte) {
+        if (ouvintes == null) {
+            ouvintes = new ArrayList<>(1);
+        }
+        ouvintes.add(ouvinte);
+    }
+    
+    private void avisarOuvintes() {
+        if (ouvintes != null) {
+            ouvintes.forEach(Runnable::run);
+        }
+    }
+    
+    double getMedia() {
+        if (avaliacoes.isEmpty()) return 0.0;
+        return somaPesos > 0 ? somaNotasPonderadas / somaPesos : 0.0;
+    }
+}
+
+// Thread-safe: lista, índice, ranking e soma das médias só são lidos e alterados com o monitor da turma.
+// AvaliacaoAluno e MediaPonderada não têm trava própria: a média de um aluno avisa a turma (reclassificar)
+// depois de mudar, e travá-las criaria a ordem turma -> aluno aqui e aluno -> turma no aviso. Quem altera
+// notas de um aluno não deve fazê-lo em paralelo com outra thread alterando o mesmo aluno.
 class AvaliacaoTurma {
+    // Maior média primeiro; empate fica com quem entrou antes na turma
+    private static final Comparator<Classificacao> POR_MEDIA = Comparator
+        .comparingDouble((Classificacao c) -> c.media).reversed()
+        .thenComparingLong(c -> c.ordem);
+    
     private final Turma turma;
     private final List<AvaliacaoAluno> avaliacoesAlunos;
+    // Índice por matrícula; com mais de uma avaliação para o mesmo aluno, aponta para a primeira
+    private final Map<String, AvaliacaoAluno> porMatricula;
+    // Agregados mantidos a cada nota alterada: soma das médias dos alunos e ranking por média.
+    // A soma é exata (BigDecimal representa cada double sem perda), então retirar a média antiga e
+    // somar a nova não acumula erro de arredondamento, por mais alterações que haja.
+    private final TreeSet<Classificacao> ranking = new TreeSet<>(POR_MEDIA);
+    private BigDecimal somaMedias = BigDecimal.ZERO;
+    // Desempate do ranking; não é reaproveitada quando uma avaliação de aluno é retirada
+    private long proximaOrdem;
     
     public AvaliacaoTurma(Turma turma) {
         this.turma = turma;
         this.avaliacoesAlunos = new ArrayList<>();
+        this.porMatricula = new HashMap<>();
     }
     
-    public void adicionarAvaliacaoAluno(AvaliacaoAluno avaliacaoAluno) {
+    public synchronized void adicionarAvaliacaoAluno(AvaliacaoAluno avaliacaoAluno) {
         avaliacoesAlunos.add(avaliacaoAluno);
+        porMatricula.putIfAbsent(avaliacaoAluno.getAluno().getMatricula(), avaliacaoAluno);
+        Classificacao classificacao = new Classificacao(avaliacaoAluno, proximaOrdem++);
+        ranking.add(classificacao);
+        somaMedias = somaMedias.add(new BigDecimal(classificacao.media));
+        avaliacaoAluno.adicionarOuvinteMedia(() -> reclassificar(classificacao));
+    }
+    
+    // Retira a entrada do ranking com a média antiga antes de reposicioná-la com a nova
+    private synchronized void reclassificar(Classificacao classificacao) {
+        ranking.remove(classificacao);
+        somaMedias = somaMedias.subtract(new BigDecimal(classificacao.media));
+        classificacao.media = classificacao.avaliacaoAluno.calcularMedia();
+        somaMedias = somaMedias.add(new BigDecimal(classificacao.media));
+        ranking.add(classificacao);
+    }
+    
+    public synchronized AvaliacaoAluno buscarAvaliacaoAluno(String matricula) {
+        return porMatricula.get(matricula);
+    }
+    
+    // Avaliação do aluno na turma, criada e adicionada se ainda não existir
+    public synchronized AvaliacaoAluno obterOuCriarAvaliacaoAluno(Aluno aluno) {
+        AvaliacaoAluno avaliacaoAluno = porMatricula.get(aluno.getMatricula());
+        if (avaliacaoAluno == null) {
+            avaliacaoAluno = new AvaliacaoAluno(aluno);
+            adicionarAvaliacaoAluno(avaliacaoAluno);
+        }
+        return avaliacaoAluno;
     }
     
-    public List<AvaliacaoAluno> getAvaliacoesAlunos() {
+    public synchronized List<AvaliacaoAluno> getAvaliacoesAlunos() {
         return new ArrayList<>(avaliacoesAlunos);
     }
     
+    // Adiciona a avaliação ao aluno, criando a avaliação dele na turma se ainda não existir, e devolve
+    // como desfazer isso. A nota entra direto nesta avaliação (a que os leitores veem); quem não conseguir
+    // salvá-la em seguida roda o desfazer. A avaliação do aluno é alterada fora do monitor, como em
+    // obterOuCriarAvaliacaoAluno seguido de adicionarAvaliacao.
+    Runnable lancarAvaliacao(Aluno aluno, Avaliacao avaliacao) {
+        AvaliacaoAluno avaliacaoAluno;
+        boolean criada;
+        synchronized (this) {
+            avaliacaoAluno = porMatricula.get(aluno.getMatricula());
+            criada = avaliacaoAluno == null;
+            if (criada) {
+                avaliacaoAluno = new AvaliacaoAluno(aluno);
+                adicionarAvaliacaoAluno(avaliacaoAluno);
+            }
+        }
+        avaliacaoAluno.adicionarAvaliacao(avaliacao);
+        AvaliacaoAluno alterada = avaliacaoAluno;
+        return () -> {
+            alterada.removerAvaliacao(avaliacao);
+            if (criada) {
+                removerAvaliacaoAluno(alterada);
+            }
+        };
+    }
+    
+    // Só para desfazer lançamentos: percorre o ranking, o que não pesa num caminho de falha
+    private synchronized void removerAvaliacaoAluno(AvaliacaoAluno avaliacaoAluno) {
+        int posicao = avaliacoesAlunos.lastIndexOf(avaliacaoAluno);
+        if (posicao < 0) return;
+        avaliacoesAlunos.remove(posicao);
+        String matricula = avaliacaoAluno.getAluno().getMatricula();
+        if (porMatricula.remove(matricula, avaliacaoAluno)) {
+            for (AvaliacaoAluno outra : avaliacoesAlunos) {
+                if (outra.getAluno().getMatricula().equals(matricula)) {
+                    porMatricula.put(matricula, outra);
+                    break;
+                }
+            }
+        }
+        for (Iterator<Classificacao> it = ranking.iterator(); it.hasNext(); ) {
+            Classificacao classificacao = it.next();
+            if (classificacao.avaliacaoAluno == avaliacaoAluno) {
+                it.remove();
+                somaMedias = somaMedias.subtract(new BigDecimal(classificacao.media));
+                break;
+            }
+        }
+    }
+    
+    // Percorre as avaliações dos alunos sem copiá-las, com o monitor da turma: a ação só deve ler
+    // (uma nota alterada dentro dela reclassificaria o ranking durante a iteração)
+    public synchronized void paraCadaAvaliacaoAluno(Consumer<? super AvaliacaoAluno> acao) {
+        avaliacoesAlunos.forEach(acao);
+    }
+    
+    public synchronized int getQuantidadeAvaliacoesAlunos() {
+        return avaliacoesAlunos.size();
+    }
+    
     public Turma getTurma() { return turma; }
     
-    public double calcularMediaTurma() {
+    public synchronized double calcularMediaTurma() {
         if (avaliacoesAlunos.isEmpty()) return 0.0;
-        
-        double soma = 0.0;
-        for (AvaliacaoAluno aa : avaliacoesAlunos) {
-            soma += aa.calcularMedia();
-        }
-        return soma / avaliacoesAlunos.size();
+        return somaMedias.doubleValue() / avaliacoesAlunos.size();
+    }
+    
+    public synchronized Aluno getMelhorAluno() {
+        if (ranking.isEmpty()) return null;
+        return ranking.first().avaliacaoAluno.getAluno();
     }
     
-    public Aluno getMelhorAluno() {
-        if (avaliacoesAlunos.isEmpty()) return null;
+    private static final class Classificacao {
+        final AvaliacaoAluno avaliacaoAluno;
+        final long ordem;
+        double media;
         
-        AvaliacaoAluno melhor = avaliacoesAlunos.get(0);
-        for (AvaliacaoAluno aa : avaliacoesAlunos) {
-            if (aa.calcularMedia() > melhor.calcularMedia()) {
-                melhor = aa;
-            }
+        Classificacao(AvaliacaoAluno avaliacaoAluno, long ordem) {
+            this.avaliacaoAluno = avaliacaoAluno;
+            this.ordem = ordem;
+            this.media = avaliacaoAluno.calcularMedia();
         }
-        return melhor.getAluno();
     }
 }
 
 class AvaliacaoAluno {
     private final Aluno aluno;
     private final List<Avaliacao> avaliacoes;
+    private final MediaPonderada media = new MediaPonderada();
     
     public AvaliacaoAluno(Aluno aluno) {
         this.aluno = aluno;
@@ -247,23 +571,27 @@ class AvaliacaoAluno {
     
     public void adicionarAvaliacao(Avaliacao avaliacao) {
         avaliacoes.add(avaliacao);
+        media.adicionar(avaliacao);
+    }
+    
+    // Desfaz adicionarAvaliacao (ver AvaliacaoTurma.lancarAvaliacao)
+    void removerAvaliacao(Avaliacao avaliacao) {
+        int posicao = avaliacoes.lastIndexOf(avaliacao);
+        if (posicao < 0) return;
+        avaliacoes.remove(posicao);
+        media.remover(avaliacao);
     }
     
     public Aluno getAluno() { return aluno; }
     public List<Avaliacao> getAvaliacoes() { return new ArrayList<>(avaliacoes); }
     
     public double calcularMedia() {
-        if (avaliacoes.isEmpty()) return 0.0;
-        
-        double somaNotasPonderadas = 0.0;
-        double somaPesos = 0.0;
-        
-        for (Avaliacao a : avaliacoes) {
-            somaNotasPonderadas += a.getNotaPonderada();
-            somaPesos += a.getPeso();
-        }
-        
-        return somaPesos > 0 ? somaNotasPonderadas / somaPesos : 0.0;
+        return media.getMedia();
+    }
+    
+    // Avisado depois de cada mudança na média (avaliação adicionada ou nota alterada)
+    void adicionarOuvinteMedia(Runnable ouvinte) {
+        media.adicionarOuvinte(ouvinte);
     }
     
     public String getStatus() {
@@ -312,6 +640,7 @@ class CursoEAD extends Curso {
 // ==================== INTERFACES E ABSTRAÇÃO ====================
 interface Autenticavel {
     ResultadoAutenticacao autenticar(Credenciais credenciais);
+    String getLogin();
 }
 
 class Credenciais {
@@ -327,6 +656,27 @@ class Credenciais {
     public String getSenha() { return senha; }
 }
 
+// Hash de senha já calculado. Os construtores que recebem o hash usam este tipo, e não String,
+// para não se confundirem com os públicos, que recebem a senha e calculam o hash.
+final class HashSenha {
+    private final String valor;
+    
+    private HashSenha(String valor) {
+        this.valor = valor;
+    }
+    
+    static HashSenha calcular(String senha) {
+        return new HashSenha(Integer.toString(senha.hashCode()));
+    }
+    
+    // Hash lido do armazenamento, usado como está
+    static HashSenha armazenado(String valor) {
+        return new HashSenha(valor);
+    }
+    
+    String getValor() { return valor; }
+}
+
 class ResultadoAutenticacao {
     private final boolean sucesso;
     private final String mensagem;
@@ -363,16 +713,28 @@ class AlunoAutenticavel extends Usuario implements Autenticavel {
     private final String login;
     private final String senhaHash;
     private final List<Avaliacao> avaliacoes;
+    private final MediaPonderada media = new MediaPonderada();
     
     public AlunoAutenticavel(String nome, String email, String matricula, 
                            String login, String senha) {
+        this(nome, email, matricula, login, HashSenha.calcular(senha));
+    }
+    
+    private AlunoAutenticavel(String nome, String email, String matricula,
+                            String login, HashSenha senhaHash) {
         super(nome, email);
         this.matricula = matricula;
         this.login = login;
-        this.senhaHash = hashSenha(senha);
+        this.senhaHash = senhaHash.getValor();
         this.avaliacoes = new ArrayList<>();
     }
     
+    // Recria um aluno persistido a partir do hash da senha já calculado
+    static AlunoAutenticavel restaurar(String nome, String email, String matricula,
+                                       String login, String senhaHash) {
+        return new AlunoAutenticavel(nome, email, matricula, login, HashSenha.armazenado(senhaHash));
+    }
+    
     @Override
     public ResultadoAutenticacao autenticar(Credenciais credenciais) {
         boolean autenticado = this.login.equals(credenciais.getLogin()) 
@@ -390,8 +752,14 @@ class AlunoAutenticavel extends Usuario implements Autenticavel {
         return "ALUNO";
     }
     
+    @Override
+    public String getLogin() {
+        return login;
+    }
+    
     public void adicionarAvaliacao(Avaliacao avaliacao) {
         avaliacoes.add(avaliacao);
+        media.adicionar(avaliacao);
     }
     
     public List<Avaliacao> getAvaliacoes() {
@@ -403,17 +771,7 @@ class AlunoAutenticavel extends Usuario implements Autenticavel {
     }
     
     public double calcularMedia() {
-        if (avaliacoes.isEmpty()) return 0.0;
-        
-        double somaNotasPonderadas = 0.0;
-        double somaPesos = 0.0;
-        
-        for (Avaliacao a : avaliacoes) {
-            somaNotasPonderadas += a.getNotaPonderada();
-            somaPesos += a.getPeso();
-        }
-        
-        return somaPesos > 0 ? somaNotasPonderadas / somaPesos : 0.0;
+        return media.getMedia();
     }
     
     public String getStatus() {
@@ -423,12 +781,12 @@ class AlunoAutenticavel extends Usuario implements Autenticavel {
         else return "REPROVADO";
     }
     
-    private String hashSenha(String senha) {
-        return Integer.toString(senha.hashCode());
+    String getSenhaHash() {
+        return senhaHash;
     }
     
     private boolean verificarSenha(String senha) {
-        return senhaHash.equals(Integer.toString(senha.hashCode()));
+        return senhaHash.equals(HashSenha.calcular(senha).getValor());
     }
 }
 
@@ -440,11 +798,22 @@ class ProfessorAutenticavel extends Usuario implements Autenticavel {
     
     public ProfessorAutenticavel(String nome, String email, String especialidade,
                                String registro, String login, String senha) {
+        this(nome, email, especialidade, registro, login, HashSenha.calcular(senha));
+    }
+    
+    private ProfessorAutenticavel(String nome, String email, String especialidade, String registro,
+                                String login, HashSenha senhaHash) {
         super(nome, email);
         this.especialidade = especialidade;
         this.registro = registro;
         this.login = login;
-        this.senhaHash = hashSenha(senha);
+        this.senhaHash = senhaHash.getValor();
+    }
+    
+    // Recria um professor persistido a partir do hash da senha já calculado
+    static ProfessorAutenticavel restaurar(String nome, String email, String especialidade,
+                                           String registro, String login, String senhaHash) {
+        return new ProfessorAutenticavel(nome, email, especialidade, registro, login, HashSenha.armazenado(senhaHash));
     }
     
     @Override
@@ -464,6 +833,11 @@ class ProfessorAutenticavel extends Usuario implements Autenticavel {
         return "PROFESSOR";
     }
     
+    @Override
+    public String getLogin() {
+        return login;
+    }
+    
     public String getEspecialidade() {
         return especialidade;
     }
@@ -472,12 +846,12 @@ class ProfessorAutenticavel extends Usuario implements Autenticavel {
         return registro;
     }
     
-    private String hashSenha(String senha) {
-        return Integer.toString(senha.hashCode());
+    String getSenhaHash() {
+        return senhaHash;
     }
     
     private boolean verificarSenha(String senha) {
-        return senhaHash.equals(Integer.toString(senha.hashCode()));
+        return senhaHash.equals(HashSenha.calcular(senha).getValor());
     }
 }
 
@@ -486,9 +860,18 @@ class Administrador extends Usuario implements Autenticavel {
     private final String senhaHash;
     
     public Administrador(String nome, String email, String login, String senha) {
+        this(nome, email, login, HashSenha.calcular(senha));
+    }
+    
+    private Administrador(String nome, String email, String login, HashSenha senhaHash) {
         super(nome, email);
         this.login = login;
-        this.senhaHash = hashSenha(senha);
+        this.senhaHash = senhaHash.getValor();
+    }
+    
+    // Recria um administrador persistido a partir do hash da senha já calculado
+    static Administrador restaurar(String nome, String email, String login, String senhaHash) {
+        return new Administrador(nome, email, login, HashSenha.armazenado(senhaHash));
     }
     
     @Override
@@ -508,12 +891,17 @@ class Administrador extends Usuario implements Autenticavel {
         return "ADMINISTRADOR";
     }
     
-    private String hashSenha(String senha) {
-        return Integer.toString(senha.hashCode());
+    @Override
+    public String getLogin() {
+        return login;
+    }
+    
+    String getSenhaHash() {
+        return senhaHash;
     }
     
     private boolean verificarSenha(String senha) {
-        return senhaHash.equals(Integer.toString(senha.hashCode()));
+        return senhaHash.equals(HashSenha.calcular(senha).getValor());
     }
 }
 
@@ -655,9 +1043,8 @@ class RelatorioTurma implements Relatorio {
         
         if (turma.getQuantidadeAlunos() > 0) {
             sb.append("\nAlunos matriculados:\n");
-            for (Aluno aluno : turma.getAlunos()) {
-                sb.append(String.format("- %s (%s)\n", aluno.getNome(), aluno.getMatricula()));
-            }
+            turma.paraCadaAluno(aluno ->
+                sb.append(String.format("- %s (%s)\n", aluno.getNome(), aluno.getMatricula())));
         }
         
         return sb.toString();
@@ -700,10 +1087,9 @@ class RelatorioAvaliacoesTurma implements Relatorio {
         }
         
         sb.append("\n📊 DESEMPENHO DOS ALUNOS:\n");
-        for (AvaliacaoAluno aa : avaliacaoTurma.getAvaliacoesAlunos()) {
-            sb.append(String.format("  %s - Média: %.2f - Status: %s\n", 
-                aa.getAluno().getNome(), aa.calcularMedia(), aa.getStatus()));
-        }
+        avaliacaoTurma.paraCadaAvaliacaoAluno(aa ->
+            sb.append(String.format("  %s - Média: %.2f - Status: %s\n",
+                aa.getAluno().getNome(), aa.calcularMedia(), aa.getStatus())));
         
         return sb.toString();
     }
@@ -738,11 +1124,11 @@ class RelatorioGeral implements Relatorio {
         sb.append("📈 ESTATÍSTICAS GERAIS DO SISTEMA\n");
         sb.append("=".repeat(40)).append("\n");
         
-        int totalAlunos = service.getAlunoRepository().listarTodos().size();
-        int totalProfessores = service.getUsuarioRepository().listarTodos().stream()
-            .filter(u -> u instanceof ProfessorAutenticavel).toList().size();
-        int totalCursos = service.getCursoRepository().listarTodos().size();
-        int totalTurmas = service.getTurmaRepository().listarTodos().size();
+        int totalAlunos = service.getAlunoRepository().count();
+        long totalProfessores = service.getUsuarioRepository().stream()
+            .filter(u -> u instanceof ProfessorAutenticavel).count();
+        int totalCursos = service.getCursoRepository().count();
+        int totalTurmas = service.getTurmaRepository().count();
         int totalAvaliacoes = service.getAvaliacaoRepository().getTotalAvaliacoes();
         
         sb.append(String.format("Total de Alunos: %d\n", totalAlunos));
@@ -752,10 +1138,10 @@ class RelatorioGeral implements Relatorio {
         sb.append(String.format("Total de Avaliações Registradas: %d\n", totalAvaliacoes));
         
         // Distribuição de cursos
-        List<Curso> cursos = service.getCursoRepository().listarTodos();
-        long presenciais = cursos.stream().filter(c -> c instanceof CursoPresencial).count();
-        long ead = cursos.stream().filter(c -> c instanceof CursoEAD).count();
-        long regulares = cursos.size() - presenciais - ead;
+        CursoRepository cursoRepository = service.getCursoRepository();
+        long presenciais = cursoRepository.stream().filter(c -> c instanceof CursoPresencial).count();
+        long ead = cursoRepository.stream().filter(c -> c instanceof CursoEAD).count();
+        long regulares = cursoRepository.count() - presenciais - ead;
         
         sb.append("\n📚 DISTRIBUIÇÃO DE CURSOS:\n");
         sb.append(String.format("  Cursos Presenciais: %d\n", presenciais));
@@ -763,10 +1149,10 @@ class RelatorioGeral implements Relatorio {
         sb.append(String.format("  Cursos Regulares: %d\n", regulares));
         
         // Turmas com mais alunos
-        List<Turma> turmas = service.getTurmaRepository().listarTodos();
-        if (!turmas.isEmpty()) {
+        TurmaRepository turmaRepository = service.getTurmaRepository();
+        if (turmaRepository.count() > 0) {
             sb.append("\n🏫 TURMAS (maior para menor):\n");
-            turmas.stream()
+            turmaRepository.stream()
                 .sorted((t1, t2) -> Integer.compare(t2.getQuantidadeAlunos(), t1.getQuantidadeAlunos()))
                 .forEach(t -> sb.append(String.format("  %s: %d alunos\n", 
                     t.getCodigo(), t.getQuantidadeAlunos())));
@@ -801,272 +1187,4216 @@ class RelatorioGeral implements Relatorio {
 }
 
 // ==================== REPOSITORY (DATA ACCESS) ====================
-interface Repositorio<T> {
-    void salvar(T entidade);
-    void remover(T entidade);
-    List<T> listarTodos();
-    T buscarPorId(String id);
-    boolean existe(String id);
-}
-
-class AlunoRepository implements Repositorio<Aluno> {
-    private final List<Aluno> alunos = new ArrayList<>();
-    private final Logger logger;
+// Página de uma listagem; proximoCursor é um token opaco para buscar a página seguinte
+class Pagina<T> {
+    private static final String PREFIXO_CURSOR = "p:";
+    private static final String PREFIXO_CURSOR_CHAVE = "k:";
     
-    public AlunoRepository(Logger logger) {
-        this.logger = logger;
+    private final List<T> itens;
+    private final String proximoCursor;
+    
+    public Pagina(List<T> itens, String proximoCursor) {
+        this.itens = itens;
+        this.proximoCursor = proximoCursor;
     }
     
-    @Override
-    public void salvar(Aluno aluno) {
-        if (!alunos.contains(aluno)) {
-            alunos.add(aluno);
-            logger.debug(String.format("Aluno %s salvo no repositório", aluno.getNome()));
+    public List<T> getItens() { return Collections.unmodifiableList(itens); }
+    public String getProximoCursor() { return proximoCursor; }
+    public boolean temProxima() { return proximoCursor != null; }
+    
+    // Com tamanho zero a página viria vazia e apontando para o mesmo cursor: quem seguisse o cursor
+    // ficaria preso num laço infinito
+    static void validarTamanho(int tamanho) {
+        if (tamanho <= 0) {
+            throw new IllegalArgumentException("Tamanho de página deve ser positivo: " + tamanho);
         }
     }
     
-    @Override
-    public void remover(Aluno aluno) {
-        alunos.remove(aluno);
-        logger.debug(String.format("Aluno %s removido do repositório", aluno.getNome()));
+    // Pagina uma lista por posição; adequado para listas pequenas ou que só crescem no fim
+    static <T> Pagina<T> deLista(List<T> lista, String cursor, int tamanho) {
+        validarTamanho(tamanho);
+        int inicio = (int) Math.min(decodificarCursor(cursor), lista.size());
+        int fim = Math.min(inicio + tamanho, lista.size());
+        List<T> itens = new ArrayList<>(lista.subList(inicio, fim));
+        return new Pagina<>(itens, fim < lista.size() ? codificarCursor(fim) : null);
     }
     
-    @Override
-    public List<Aluno> listarTodos() {
-        return new ArrayList<>(alunos);
+    static String codificarCursor(long posicao) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((PREFIXO_CURSOR + posicao).getBytes(StandardCharsets.UTF_8));
     }
     
-    @Override
-    public Aluno buscarPorId(String matricula) {
-        return alunos.stream()
-            .filter(a -> a.getMatricula().equals(matricula))
-            .findFirst()
-            .orElse(null);
+    // Cursor nulo indica a primeira página
+    static long decodificarCursor(String cursor) {
+        if (cursor == null) return 0L;
+        try {
+            String conteudo = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!conteudo.startsWith(PREFIXO_CURSOR)) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
+            return Long.parseLong(conteudo.substring(PREFIXO_CURSOR.length()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor, e);
+        }
     }
     
-    @Override
-    public boolean existe(String matricula) {
-        return alunos.stream().anyMatch(a -> a.getMatricula().equals(matricula));
+    // Cursor pela última chave entregue, para armazenamentos ordenados por chave
+    static String codificarCursorChave(String chave) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((PREFIXO_CURSOR_CHAVE + chave).getBytes(StandardCharsets.UTF_8));
     }
     
-    public boolean existeAlunoNoCurso(String curso) {
-        return alunos.stream().anyMatch(a -> a.getCurso().equalsIgnoreCase(curso));
+    // Cursor nulo indica a primeira página (retorna null)
+    static String decodificarCursorChave(String cursor) {
+        if (cursor == null) return null;
+        String conteudo;
+        try {
+            conteudo = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor, e);
+        }
+        if (!conteudo.startsWith(PREFIXO_CURSOR_CHAVE)) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+        return conteudo.substring(PREFIXO_CURSOR_CHAVE.length());
     }
     
-    public List<Aluno> buscarPorCurso(String curso) {
-        return alunos.stream()
-            .filter(a -> a.getCurso().equalsIgnoreCase(curso))
-            .collect(Collectors.toList());
+    // Percorre as páginas sob demanda, sem materializar o conjunto inteiro
+    static <T> Stream<T> emSequencia(Function<String, Pagina<T>> carregador) {
+        Iterator<T> iterador = new Iterator<>() {
+            private Pagina<T> pagina = carregador.apply(null);
+            private int posicao;
+            
+            @Override
+            public boolean hasNext() {
+                if (posicao == pagina.itens.size() && pagina.temProxima()) {
+                    pagina = carregador.apply(pagina.proximoCursor);
+                    posicao = 0;
+                }
+                return posicao < pagina.itens.size();
+            }
+            
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return pagina.itens.get(posicao++);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterador, Spliterator.ORDERED), false);
     }
 }
 
-class UsuarioRepository implements Repositorio<Usuario> {
-    private final List<Usuario> usuarios = new ArrayList<>();
-    private final Logger logger;
+// Observa mutações de um repositório; chamado antes da alteração ser aplicada em memória
+interface OuvinteRepositorio<T> {
+    void aoSalvar(T entidade);
+    void aoRemover(T entidade);
+}
+
+interface Repositorio<T> {
+    void salvar(T entidade);
+    void remover(T entidade);
+    List<T> listarTodos();
+    T buscarPorId(String id);
+    boolean existe(String id);
     
-    public UsuarioRepository(Logger logger) {
-        this.logger = logger;
-    }
+    // Operações de leitura sem cópia: percorrem uma visão somente leitura dos dados
+    int count();
+    void forEach(Consumer<? super T> acao);
+    Stream<T> stream();
     
-    @Override
-    public void salvar(Usuario usuario) {
-        if (!usuarios.contains(usuario)) {
-            usuarios.add(usuario);
-            logger.debug(String.format("Usuário %s salvo no repositório", usuario.getNome()));
-        }
-    }
+    // Paginação com ordem estável; cursor nulo inicia da primeira página
+    Pagina<T> listarPagina(String cursor, int tamanho);
     
-    @Override
-    public void remover(Usuario usuario) {
-        usuarios.remove(usuario);
-        logger.debug(String.format("Usuário %s removido do repositório", usuario.getNome()));
+    // Gravação em massa; implementações com armazenamento externo agrupam as escritas em lotes
+    default void salvarTodos(Collection<? extends T> entidades) {
+        entidades.forEach(this::salvar);
     }
-    
-    @Override
-    public List<Usuario> listarTodos() {
-        return new ArrayList<>(usuarios);
+}
+
+// Repositório com buscas por índice secundário, respondidas por qualquer armazenamento (memória, banco
+// ou disco). Um nome de índice não declarado lança IllegalArgumentException; buscarUnicoPorIndice num
+// índice que não é único lança IllegalStateException.
+interface RepositorioIndexado<T> extends Repositorio<T> {
+    List<T> buscarPorIndice(String nomeIndice, String chave);
+    T buscarUnicoPorIndice(String nomeIndice, String chave);
+    boolean existePorIndice(String nomeIndice, String chave);
+}
+
+// Travas particionadas por chave: escritas em chaves diferentes não disputam a mesma trava
+final class TravasParticionadas {
+    private final ReentrantLock[] travas;
+    
+    TravasParticionadas(int particoes) {
+        this.travas = new ReentrantLock[particoes];
+        for (int i = 0; i < particoes; i++) {
+            travas[i] = new ReentrantLock();
+        }
     }
     
-    @Override
-    public Usuario buscarPorId(String email) {
-        return usuarios.stream()
-            .filter(u -> u.getEmail().equals(email))
-            .findFirst()
-            .orElse(null);
+    ReentrantLock para(String chave) {
+        int hash = chave == null ? 0 : chave.hashCode();
+        return travas[((hash ^ (hash >>> 16)) & 0x7fffffff) % travas.length];
     }
-    
-    @Override
-    public boolean existe(String email) {
-        return usuarios.stream().anyMatch(u -> u.getEmail().equals(email));
+}
+
+// Filtro de Bloom: "não contém" é definitivo; "talvez contém" erra com a taxa de falso positivo
+// configurada enquanto a quantidade de chaves não passar da capacidade prevista.
+// Tamanho ótimo: m = -n·ln(p) / ln(2)² bits e k = (m/n)·ln(2) funções de hash, derivadas por hash duplo.
+// Sem remoção: bits não são desligados, então chaves removidas continuam "talvez presentes".
+final class FiltroBloom {
+    private final AtomicLongArray bits;
+    private final long totalBits;
+    private final int funcoes;
+    private final long capacidade;
+    private final AtomicLong inseridas = new AtomicLong();
+    
+    FiltroBloom(long capacidade, double taxaFalsoPositivo) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("Capacidade do filtro deve ser positiva");
+        }
+        if (!(taxaFalsoPositivo > 0 && taxaFalsoPositivo < 1)) {
+            throw new IllegalArgumentException("Taxa de falso positivo deve estar entre 0 e 1");
+        }
+        long bitsNecessarios = (long) Math.ceil(-capacidade * Math.log(taxaFalsoPositivo) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray((int) Math.min((bitsNecessarios + 63) / 64, Integer.MAX_VALUE - 8));
+        this.totalBits = (long) bits.length() * 64;
+        this.funcoes = (int) Math.max(1, Math.round((double) totalBits / capacidade * Math.log(2)));
+        this.capacidade = capacidade;
+    }
+    
+    void adicionar(String chave) {
+        long hash = hash(chave);
+        long h1 = misturar(hash);
+        long h2 = misturar(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < funcoes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, totalBits);
+            int palavra = (int) (bit >>> 6);
+            long mascara = 1L << bit;
+            long atual = bits.get(palavra);
+            while ((atual & mascara) == 0 && !bits.compareAndSet(palavra, atual, atual | mascara)) {
+                atual = bits.get(palavra);
+            }
+        }
+        inseridas.incrementAndGet();
     }
     
-    public Usuario autenticar(Credenciais credenciais) {
-        for (Usuario usuario : usuarios) {
-            if (usuario instanceof Autenticavel) {
-                ResultadoAutenticacao resultado = ((Autenticavel) usuario).autenticar(credenciais);
-                if (resultado.isSucesso()) {
-                    logger.info(resultado.getMensagem());
-                    return usuario;
-                }
+    boolean talvezContenha(String chave) {
+        long hash = hash(chave);
+        long h1 = misturar(hash);
+        long h2 = misturar(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < funcoes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, totalBits);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
             }
         }
-        logger.erro("Falha na autenticação para login: " + credenciais.getLogin());
-        return null;
+        return true;
     }
     
-    public List<AlunoAutenticavel> listarAlunosAutenticaveis() {
-        return usuarios.stream()
-            .filter(u -> u instanceof AlunoAutenticavel)
-            .map(u -> (AlunoAutenticavel) u)
-            .collect(Collectors.toList());
+    // Acima da capacidade a taxa real de falso positivo passa da configurada
+    boolean isSaturado() {
+        return inseridas.get() > capacidade;
     }
-}
-
-class CursoRepository implements Repositorio<Curso> {
-    private final List<Curso> cursos = new ArrayList<>();
-    private final Logger logger;
     
-    public CursoRepository(Logger logger) {
-        this.logger = logger;
-    }
+    long getCapacidade() { return capacidade; }
+    long getTotalBits() { return totalBits; }
+    int getFuncoes() { return funcoes; }
     
-    @Override
-    public void salvar(Curso curso) {
-        if (!cursos.contains(curso)) {
-            cursos.add(curso);
-            logger.debug(String.format("Curso %s salvo no repositório", curso.getNome()));
+    // FNV-1a de 64 bits sobre os caracteres da chave
+    private static long hash(String chave) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < chave.length(); i++) {
+            hash = (hash ^ chave.charAt(i)) * 0x100000001b3L;
         }
+        return hash;
     }
     
-    @Override
-    public void remover(Curso curso) {
-        cursos.remove(curso);
-        logger.debug(String.format("Curso %s removido do repositório", curso.getNome()));
+    // Finalizador do MurmurHash3: espalha os bits para que h1 e h2 sejam independentes
+    private static long misturar(long valor) {
+        valor ^= valor >>> 33;
+        valor *= 0xff51afd7ed558ccdL;
+        valor ^= valor >>> 33;
+        valor *= 0xc4ceb9fe1a85ec53L;
+        valor ^= valor >>> 33;
+        return valor;
     }
-    
-    @Override
-    public List<Curso> listarTodos() {
-        return new ArrayList<>(cursos);
+}
+
+// Filtro de Bloom à frente das verificações de existência de um armazenamento externo (disco/banco):
+// a maioria das consultas de cadastro é por chaves novas, respondidas sem tocar no armazenamento.
+// Reconstruído a partir das chaves gravadas na abertura e quando passa da capacidade. Cada inserção
+// registra a chave antes de gravar e a conclui depois; a reconstrução bloqueia os registros até a troca
+// do filtro e leva para o novo as chaves ainda em gravação, que a varredura pode não enxergar.
+final class FiltroExistencia {
+    static final double TAXA_FALSO_POSITIVO_PADRAO = 0.01;
+    private static final long CAPACIDADE_MINIMA = 1024;
+    
+    private final double taxaFalsoPositivo;
+    private final LongSupplier quantidade;
+    private final Consumer<Consumer<String>> chaves;
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private final AtomicLong consultas = new AtomicLong();
+    private final AtomicLong negativas = new AtomicLong();
+    // Chaves registradas cuja gravação ainda não foi concluída (com multiplicidade)
+    private final ConcurrentHashMap<String, Integer> emGravacao = new ConcurrentHashMap<>();
+    private volatile FiltroBloom filtro;
+    
+    // quantidade: total atual de chaves; chaves: percorre todas as chaves gravadas
+    FiltroExistencia(double taxaFalsoPositivo, LongSupplier quantidade, Consumer<Consumer<String>> chaves) {
+        this.taxaFalsoPositivo = taxaFalsoPositivo;
+        this.quantidade = quantidade;
+        this.chaves = chaves;
+        reconstruir();
+    }
+    
+    // Espaço para o dobro das chaves atuais, evitando reconstruções seguidas enquanto o cadastro cresce
+    void reconstruir() {
+        trava.writeLock().lock();
+        try {
+            FiltroBloom novo = new FiltroBloom(Math.max(CAPACIDADE_MINIMA, quantidade.getAsLong() * 2), taxaFalsoPositivo);
+            // Antes da varredura: uma chave concluída depois desta cópia já estava gravada quando ela começou
+            emGravacao.keySet().forEach(novo::adicionar);
+            chaves.accept(novo::adicionar);
+            filtro = novo;
+        } finally {
+            trava.writeLock().unlock();
+        }
     }
     
-    @Override
-    public Curso buscarPorId(String codigo) {
-        return cursos.stream()
-            .filter(c -> c.getCodigo().equalsIgnoreCase(codigo))
-            .findFirst()
-            .orElse(null);
+    // Chamado antes de gravar a chave no armazenamento, sempre seguido de concluir(chave), mesmo se a
+    // gravação falhar: um leitor nunca encontra a chave gravada com o filtro ainda dizendo que ela não existe
+    void registrar(String chave) {
+        boolean saturado;
+        trava.readLock().lock();
+        try {
+            emGravacao.merge(chave, 1, Integer::sum);
+            filtro.adicionar(chave);
+            saturado = filtro.isSaturado();
+        } finally {
+            trava.readLock().unlock();
+        }
+        if (saturado) {
+            reconstruir();
+        }
     }
     
-    @Override
-    public boolean existe(String codigo) {
-        return cursos.stream().anyMatch(c -> c.getCodigo().equalsIgnoreCase(codigo));
+    void concluir(String chave) {
+        emGravacao.computeIfPresent(chave, (c, gravacoes) -> gravacoes == 1 ? null : gravacoes - 1);
     }
     
-    public boolean existePorNome(String nome) {
-        return cursos.stream().anyMatch(c -> c.getNome().equalsIgnoreCase(nome));
+    // false: a chave certamente não está gravada
+    boolean podeExistir(String chave) {
+        consultas.incrementAndGet();
+        if (filtro.talvezContenha(chave)) {
+            return true;
+        }
+        negativas.incrementAndGet();
+        return false;
     }
     
-    public Curso buscarPorNome(String nome) {
-        return cursos.stream()
-            .filter(c -> c.getNome().equalsIgnoreCase(nome))
-            .findFirst()
-            .orElse(null);
-    }
+    long getConsultas() { return consultas.get(); }
+    long getNegativas() { return negativas.get(); }
+    FiltroBloom getFiltro() { return filtro; }
 }
 
-class TurmaRepository implements Repositorio<Turma> {
-    private final List<Turma> turmas = new ArrayList<>();
-    private final Logger logger;
+// Camada quente de um armazenamento externo: entidades usadas recentemente ficam no heap, em ordem LRU,
+// até o limite de bytes estimados; as menos usadas são descartadas e voltam a ser lidas do armazenamento.
+// O tamanho parte do registro serializado (o objeto no heap ocupa algumas vezes mais que seus bytes).
+// Leituras concorrentes com uma escrita não repõem no cache um valor lido antes dela (controle por geração).
+final class CacheEntidades<T> {
+    static final long LIMITE_BYTES_PADRAO = 64L * 1024 * 1024;
+    private static final int FATOR_HEAP = 3;
+    private static final int CUSTO_ENTRADA = 96;
     
-    public TurmaRepository(Logger logger) {
-        this.logger = logger;
+    private final String nome;
+    private final long limiteBytes;
+    private final LinkedHashMap<String, Entrada<T>> entradas = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytesEmUso;
+    private long geracao;
+    private long acertos;
+    private long faltas;
+    private long remocoes;
+    
+    CacheEntidades(String nome, long limiteBytes) {
+        if (limiteBytes <= 0) {
+            throw new IllegalArgumentException("Limite do cache deve ser positivo");
+        }
+        this.nome = nome;
+        this.limiteBytes = limiteBytes;
     }
     
-    @Override
-    public void salvar(Turma turma) {
-        if (!turmas.contains(turma)) {
-            turmas.add(turma);
-            logger.debug(String.format("Turma %s salva no repositório", turma.getCodigo()));
+    synchronized T obter(String chave) {
+        Entrada<T> entrada = entradas.get(chave);
+        if (entrada == null) {
+            faltas++;
+            return null;
         }
+        acertos++;
+        return entrada.entidade;
     }
     
-    @Override
-    public void remover(Turma turma) {
-        turmas.remove(turma);
-        logger.debug(String.format("Turma %s removida do repositório", turma.getCodigo()));
+    // Lida antes de consultar o armazenamento, para guardarLido descartar valores já superados
+    synchronized long getGeracao() {
+        return geracao;
     }
     
-    @Override
-    public List<Turma> listarTodos() {
-        return new ArrayList<>(turmas);
+    // Valor lido do armazenamento; ignorado se houve escrita desde getGeracao()
+    synchronized void guardarLido(String chave, T entidade, int tamanhoSerializado, long geracaoLida) {
+        if (geracaoLida == geracao) {
+            inserir(chave, entidade, tamanhoSerializado);
+        }
     }
     
-    @Override
-    public Turma buscarPorId(String codigo) {
-        return turmas.stream()
-            .filter(t -> t.getCodigo().equals(codigo))
-            .findFirst()
-            .orElse(null);
+    // Valor recém-gravado no armazenamento
+    synchronized void guardar(String chave, T entidade, int tamanhoSerializado) {
+        geracao++;
+        inserir(chave, entidade, tamanhoSerializado);
     }
     
-    @Override
-    public boolean existe(String codigo) {
-        return turmas.stream().anyMatch(t -> t.getCodigo().equals(codigo));
+    synchronized void invalidar(String chave) {
+        geracao++;
+        Entrada<T> removida = entradas.remove(chave);
+        if (removida != null) {
+            bytesEmUso -= removida.bytes;
+        }
     }
     
-    public boolean existeTurmaComCurso(String codigoCurso) {
-        return turmas.stream().anyMatch(t -> t.getCurso().getCodigo().equalsIgnoreCase(codigoCurso));
+    private void inserir(String chave, T entidade, int tamanhoSerializado) {
+        long bytes = CUSTO_ENTRADA + (long) tamanhoSerializado * FATOR_HEAP;
+        Entrada<T> anterior = entradas.remove(chave);
+        if (anterior != null) {
+            bytesEmUso -= anterior.bytes;
+        }
+        // Maior que o cache inteiro: não vale esvaziá-lo por uma entidade
+        if (bytes > limiteBytes) return;
+        entradas.put(chave, new Entrada<>(entidade, bytes));
+        bytesEmUso += bytes;
+        Iterator<Entrada<T>> maisAntigas = entradas.values().iterator();
+        while (bytesEmUso > limiteBytes) {
+            bytesEmUso -= maisAntigas.next().bytes;
+            maisAntigas.remove();
+            remocoes++;
+        }
     }
     
-    public List<Turma> buscarPorCurso(String codigoCurso) {
-        return turmas.stream()
-            .filter(t -> t.getCurso().getCodigo().equalsIgnoreCase(codigoCurso))
-            .collect(Collectors.toList());
-    }
+    String getNome() { return nome; }
+    long getLimiteBytes() { return limiteBytes; }
+    synchronized int getQuantidade() { return entradas.size(); }
+    synchronized long getBytesEmUso() { return bytesEmUso; }
+    synchronized long getAcertos() { return acertos; }
+    synchronized long getFaltas() { return faltas; }
+    synchronized long getRemocoes() { return remocoes; }
     
-    public List<Turma> buscarPorProfessor(String registroProfessor) {
-        return turmas.stream()
-            .filter(t -> t.getProfessor().getRegistro().equals(registroProfessor))
-            .collect(Collectors.toList());
+    private static final class Entrada<T> {
+        final T entidade;
+        final long bytes;
+        
+        Entrada(T entidade, long bytes) {
+            this.entidade = entidade;
+            this.bytes = bytes;
+        }
     }
 }
 
-class AvaliacaoRepository {
-    private final List<AvaliacaoTurma> avaliacoesTurma = new ArrayList<>();
-    private final Logger logger;
+// Carga executada uma única vez, no primeiro acesso ao repositório (inicialização sob demanda)
+final class CargaTardia {
+    private volatile Runnable pendente;
+    
+    void definir(Runnable carga) {
+        pendente = carga;
+    }
+    
+    void garantir() {
+        if (pendente == null) return;
+        synchronized (this) {
+            Runnable carga = pendente;
+            if (carga != null) {
+                carga.run();
+                pendente = null;
+            }
+        }
+    }
+}
+
+// Repositório genérico: índice primário por id e índices secundários declarados pelas subclasses.
+// Seguro para uso concorrente: leituras sem trava, escritas serializadas por id via travas particionadas.
+abstract class IndexedRepositorio<T> implements RepositorioIndexado<T> {
+    private static final int PARTICOES_ESCRITA = 32;
+    
+    // Índice primário: id normalizado -> registro (entidade + sequência de inserção)
+    private final Map<String, Registro<T>> registrosPorId = new ConcurrentHashMap<>();
+    // Ordem de inserção, usada por listarTodos, forEach e stream
+    private final ConcurrentSkipListMap<Long, T> ordemInsercao = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequencia = new AtomicLong();
+    private final Map<String, Indice<T>> indices = new ConcurrentHashMap<>();
+    private final TravasParticionadas travas = new TravasParticionadas(PARTICOES_ESCRITA);
+    private final List<OuvinteRepositorio<T>> ouvintes = new CopyOnWriteArrayList<>();
+    private final CargaTardia carga = new CargaTardia();
+    private volatile Consumer<Runnable> executorEscritas = Runnable::run;
+    private final Function<T, String> extratorId;
+    private final boolean idIgnoraCaixa;
+    protected final Logger logger;
+    
+    protected IndexedRepositorio(Logger logger, Function<T, String> extratorId, boolean idIgnoraCaixa) {
+        this.logger = logger;
+        this.extratorId = extratorId;
+        this.idIgnoraCaixa = idIgnoraCaixa;
+    }
+    
+    // Índice em que cada chave identifica uma entidade: salvar outra entidade com a mesma chave lança
+    // IllegalStateException (na restauração de dados já persistidos prevalece a primeira)
+    protected final void declararIndiceUnico(String nome, Function<T, String> extrator, boolean ignoraCaixa) {
+        indices.put(nome, new Indice<>(nome, indices.size(), extrator, ignoraCaixa, true));
+    }
+    
+    // Índice em que cada chave agrupa várias entidades
+    protected final void declararIndice(String nome, Function<T, String> extrator, boolean ignoraCaixa) {
+        indices.put(nome, new Indice<>(nome, indices.size(), extrator, ignoraCaixa, false));
+    }
+    
+    protected abstract String mensagemSalvo(T entidade);
+    protected abstract String mensagemRemovido(T entidade);
+    
+    // Chamado, com a trava do id, quando outra instância com o mesmo id é salva; por padrão ela é ignorada,
+    // como fazia a lista com equals por id. Lançar aqui rejeita a escrita antes de qualquer alteração.
+    protected void aoSalvarIdRepetido(T existente, T entidade) {
+    }
+    
+    public void adicionarOuvinte(OuvinteRepositorio<T> ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+    
+    // A carga só roda no primeiro acesso; até lá o repositório não ocupa memória com entidades
+    public void definirCargaTardia(Runnable acao) {
+        carga.definir(acao);
+    }
+    
+    // Executa cada escrita já validada (notificação dos ouvintes + aplicação em memória) como uma unidade;
+    // a persistência a usa para que um snapshot nunca fique entre o registro no journal e a aplicação
+    public void definirExecutorEscritas(Consumer<Runnable> executor) {
+        executorEscritas = executor;
+    }
+    
+    // Insere uma entidade já persistida, sem notificar os ouvintes (hidratação a partir do armazenamento)
+    public void restaurar(T entidade) {
+        String id = normalizar(extratorId.apply(entidade), idIgnoraCaixa);
+        ReentrantLock trava = travas.para(id);
+        trava.lock();
+        try {
+            if (!registrosPorId.containsKey(id)) {
+                inserir(id, novoRegistro(sequencia.incrementAndGet(), entidade), false);
+            }
+        } finally {
+            trava.unlock();
+        }
+    }
+    
+    // As chaves de todos os índices são extraídas aqui, antes de os ouvintes serem notificados:
+    // um extrator que falha rejeita a escrita sem que ela chegue ao journal
+    private Registro<T> novoRegistro(long sequenciaRegistro, T entidade) {
+        String[] chaves = new String[indices.size()];
+        for (Indice<T> indice : indices.values()) {
+            chaves[indice.posicao] = indice.chaveDe(entidade);
+        }
+        return new Registro<>(sequenciaRegistro, entidade, chaves);
+    }
+    
+    private void inserir(String id, Registro<T> registro, boolean chavesUnicasOcupadas) {
+        for (Indice<T> indice : indices.values()) {
+            if (!(chavesUnicasOcupadas && indice.unico)) {
+                indice.adicionar(registro);
+            }
+        }
+        ordemInsercao.put(registro.sequencia, registro.entidade);
+        registrosPorId.put(id, registro);
+    }
+    
+    // Troca as entradas cujas chaves mudaram desde o registro anterior (chaves únicas já ocupadas)
+    private void reindexar(String id, Registro<T> anterior, Registro<T> registro) {
+        for (Indice<T> indice : indices.values()) {
+            if (Objects.equals(indice.chave(anterior), indice.chave(registro))) continue;
+            indice.remover(anterior);
+            if (!indice.unico) {
+                indice.adicionar(registro);
+            }
+        }
+        registrosPorId.put(id, registro);
+    }
+    
+    // Ocupa as chaves novas dos índices únicos antes da escrita (anterior é null numa inserção);
+    // se alguma já pertence a outra entidade, libera as já ocupadas e rejeita a escrita
+    private void ocuparChavesUnicas(Registro<T> anterior, Registro<T> registro) {
+        List<Indice<T>> ocupados = new ArrayList<>();
+        for (Indice<T> indice : indices.values()) {
+            if (!chaveUnicaNova(indice, anterior, registro)) continue;
+            if (!indice.ocupar(registro)) {
+                ocupados.forEach(ocupado -> ocupado.remover(registro));
+                throw new IllegalStateException(String.format("Índice único '%s' já contém a chave '%s'",
+                    indice.nome, indice.chave(registro)));
+            }
+            ocupados.add(indice);
+        }
+    }
+    
+    private void liberarChavesUnicas(Registro<T> anterior, Registro<T> registro) {
+        for (Indice<T> indice : indices.values()) {
+            if (chaveUnicaNova(indice, anterior, registro)) {
+                indice.remover(registro);
+            }
+        }
+    }
+    
+    private static <T> boolean chaveUnicaNova(Indice<T> indice, Registro<T> anterior, Registro<T> registro) {
+        return indice.unico && (anterior == null || !Objects.equals(indice.chave(anterior), indice.chave(registro)));
+    }
+    
+    @Override
+    public void salvar(T entidade) {
+        carga.garantir();
+        String id = normalizar(extratorId.apply(entidade), idIgnoraCaixa);
+        boolean inserida = false;
+        ReentrantLock trava = travas.para(id);
+        trava.lock();
+        try {
+            Registro<T> existente = registrosPorId.get(id);
+            if (existente != null && existente.entidade == entidade) {
+                // Mesma instância salva de novo após ser alterada (ex.: turma com novo aluno);
+                // os índices acompanham campos indexados que tenham mudado
+                Registro<T> registro = novoRegistro(existente.sequencia, entidade);
+                ocuparChavesUnicas(existente, registro);
+                executorEscritas.accept(() -> {
+                    notificarSalvo(existente, registro);
+                    reindexar(id, existente, registro);
+                });
+            } else if (existente == null) {
+                Registro<T> registro = novoRegistro(sequencia.incrementAndGet(), entidade);
+                ocuparChavesUnicas(null, registro);
+                executorEscritas.accept(() -> {
+                    notificarSalvo(null, registro);
+                    inserir(id, registro, true);
+                });
+                inserida = true;
+            } else {
+                aoSalvarIdRepetido(existente.entidade, entidade);
+            }
+        } finally {
+            trava.unlock();
+        }
+        if (inserida) {
+            logger.debug(mensagemSalvo(entidade));
+        }
+    }
+    
+    // Última etapa que pode falhar: depois dela a escrita é aplicada em memória sem exceções
+    private void notificarSalvo(Registro<T> anterior, Registro<T> registro) {
+        try {
+            ouvintes.forEach(o -> o.aoSalvar(registro.entidade));
+        } catch (RuntimeException e) {
+            liberarChavesUnicas(anterior, registro);
+            throw e;
+        }
+    }
+    
+    @Override
+    public void remover(T entidade) {
+        carga.garantir();
+        String id = normalizar(extratorId.apply(entidade), idIgnoraCaixa);
+        ReentrantLock trava = travas.para(id);
+        trava.lock();
+        try {
+            Registro<T> existente = registrosPorId.get(id);
+            if (existente != null) {
+                executorEscritas.accept(() -> {
+                    ouvintes.forEach(o -> o.aoRemover(existente.entidade));
+                    registrosPorId.remove(id);
+                    ordemInsercao.remove(existente.sequencia);
+                    for (Indice<T> indice : indices.values()) {
+                        indice.remover(existente);
+                    }
+                });
+            }
+        } finally {
+            trava.unlock();
+        }
+        logger.debug(mensagemRemovido(entidade));
+    }
+    
+    @Override
+    public List<T> listarTodos() {
+        carga.garantir();
+        return new ArrayList<>(ordemInsercao.values());
+    }
+    
+    @Override
+    public int count() {
+        carga.garantir();
+        return registrosPorId.size();
+    }
+    
+    @Override
+    public void forEach(Consumer<? super T> acao) {
+        carga.garantir();
+        ordemInsercao.values().forEach(acao);
+    }
+    
+    @Override
+    public Stream<T> stream() {
+        carga.garantir();
+        return Collections.unmodifiableCollection(ordemInsercao.values()).stream();
+    }
+    
+    @Override
+    public Pagina<T> listarPagina(String cursor, int tamanho) {
+        Pagina.validarTamanho(tamanho);
+        carga.garantir();
+        // O cursor guarda a sequência de inserção do último item entregue
+        List<T> itens = new ArrayList<>(tamanho);
+        long ultimaSequencia = 0L;
+        boolean haMais = false;
+        for (Map.Entry<Long, T> entrada : ordemInsercao.tailMap(Pagina.decodificarCursor(cursor), false).entrySet()) {
+            if (itens.size() == tamanho) {
+                haMais = true;
+                break;
+            }
+            itens.add(entrada.getValue());
+            ultimaSequencia = entrada.getKey();
+        }
+        return new Pagina<>(itens, haMais ? Pagina.codificarCursor(ultimaSequencia) : null);
+    }
+    
+    @Override
+    public T buscarPorId(String id) {
+        if (id == null) return null;
+        carga.garantir();
+        Registro<T> registro = registrosPorId.get(normalizar(id, idIgnoraCaixa));
+        return registro == null ? null : registro.entidade;
+    }
+    
+    @Override
+    public boolean existe(String id) {
+        if (id == null) return false;
+        carga.garantir();
+        return registrosPorId.containsKey(normalizar(id, idIgnoraCaixa));
+    }
+    
+    @Override
+    public T buscarUnicoPorIndice(String nomeIndice, String chave) {
+        carga.garantir();
+        return indice(nomeIndice).buscarUnico(chave);
+    }
+    
+    @Override
+    public List<T> buscarPorIndice(String nomeIndice, String chave) {
+        carga.garantir();
+        return indice(nomeIndice).buscar(chave);
+    }
+    
+    @Override
+    public boolean existePorIndice(String nomeIndice, String chave) {
+        carga.garantir();
+        return indice(nomeIndice).contem(chave);
+    }
+    
+    private Indice<T> indice(String nome) {
+        Indice<T> indice = indices.get(nome);
+        if (indice == null) {
+            throw new IllegalArgumentException("Índice não declarado: " + nome);
+        }
+        return indice;
+    }
+    
+    static String normalizar(String chave, boolean ignoraCaixa) {
+        return chave == null || !ignoraCaixa ? chave : chave.toLowerCase(Locale.ROOT);
+    }
+    
+    private static final class Registro<T> {
+        final long sequencia;
+        final T entidade;
+        // Chaves da entidade em cada índice (pela posição do índice), fixadas quando ela foi salva
+        final String[] chaves;
+        
+        Registro(long sequencia, T entidade, String[] chaves) {
+            this.sequencia = sequencia;
+            this.entidade = entidade;
+            this.chaves = chaves;
+        }
+    }
+    
+    private static final class Indice<T> {
+        final String nome;
+        final int posicao;
+        private final Function<T, String> extrator;
+        final boolean ignoraCaixa;
+        final boolean unico;
+        // Cada grupo é ordenado pela sequência de inserção das entidades
+        private final Map<String, ConcurrentSkipListMap<Long, T>> entradas = new ConcurrentHashMap<>();
+        
+        Indice(String nome, int posicao, Function<T, String> extrator, boolean ignoraCaixa, boolean unico) {
+            this.nome = nome;
+            this.posicao = posicao;
+            this.extrator = extrator;
+            this.ignoraCaixa = ignoraCaixa;
+            this.unico = unico;
+        }
+        
+        // Entidades sem chave (extrator retorna null) ficam fora do índice
+        void adicionar(Registro<T> registro) {
+            String chave = chave(registro);
+            if (chave == null) return;
+            entradas.compute(chave, (c, grupo) -> {
+                ConcurrentSkipListMap<Long, T> atualizado = grupo == null ? new ConcurrentSkipListMap<>() : grupo;
+                atualizado.put(registro.sequencia, registro.entidade);
+                return atualizado;
+            });
+        }
+        
+        // Atômico entre escritores de ids diferentes: só um deles ocupa uma chave livre
+        boolean ocupar(Registro<T> registro) {
+            String chave = chave(registro);
+            if (chave == null) return true;
+            ConcurrentSkipListMap<Long, T> grupo = new ConcurrentSkipListMap<>();
+            grupo.put(registro.sequencia, registro.entidade);
+            return entradas.putIfAbsent(chave, grupo) == null;
+        }
+        
+        void remover(Registro<T> registro) {
+            String chave = chave(registro);
+            if (chave == null) return;
+            entradas.computeIfPresent(chave, (c, grupo) -> {
+                grupo.remove(registro.sequencia);
+                return grupo.isEmpty() ? null : grupo;
+            });
+        }
+        
+        T buscarUnico(String chave) {
+            if (!unico) {
+                throw new IllegalStateException("Índice não é único");
+            }
+            ConcurrentSkipListMap<Long, T> grupo = grupo(chave);
+            Map.Entry<Long, T> primeiro = grupo == null ? null : grupo.firstEntry();
+            return primeiro == null ? null : primeiro.getValue();
+        }
+        
+        List<T> buscar(String chave) {
+            ConcurrentSkipListMap<Long, T> grupo = grupo(chave);
+            return grupo == null ? new ArrayList<>() : new ArrayList<>(grupo.values());
+        }
+        
+        boolean contem(String chave) {
+            return grupo(chave) != null;
+        }
+        
+        private ConcurrentSkipListMap<Long, T> grupo(String chave) {
+            return chave == null ? null : entradas.get(normalizar(chave, ignoraCaixa));
+        }
+        
+        String chaveDe(T entidade) {
+            return normalizar(extrator.apply(entidade), ignoraCaixa);
+        }
+        
+        String chave(Registro<T> registro) {
+            return registro.chaves[posicao];
+        }
+    }
+}
+
+// ==================== REPOSITÓRIOS DE DOMÍNIO ====================
+// Cada contrato é implementado em memória (*Memoria), no banco (*Jdbc) e, para alunos, em disco (*Disco);
+// as consultas de domínio são feitas sobre os índices, com os mesmos nomes em todos os armazenamentos.
+interface AlunoRepository extends RepositorioIndexado<Aluno> {
+    String INDICE_CURSO = "curso";
+    
+    default boolean existeAlunoNoCurso(String curso) {
+        return existePorIndice(INDICE_CURSO, curso);
+    }
+    
+    default List<Aluno> buscarPorCurso(String curso) {
+        return buscarPorIndice(INDICE_CURSO, curso);
+    }
+    
+    // Motivo pelo qual o armazenamento não aceitaria as chaves do aluno, ou null se ele as aceita;
+    // em memória não há limite
+    default String verificarLimitesChaves(String matricula, String curso) {
+        return null;
+    }
+}
+
+class AlunoRepositoryMemoria extends IndexedRepositorio<Aluno> implements AlunoRepository {
+    public AlunoRepositoryMemoria(Logger logger) {
+        super(logger, Aluno::getMatricula, false);
+        declararIndice(INDICE_CURSO, Aluno::getCurso, true);
+    }
+    
+    @Override
+    protected String mensagemSalvo(Aluno aluno) {
+        return String.format("Aluno %s salvo no repositório", aluno.getNome());
+    }
+    
+    @Override
+    protected String mensagemRemovido(Aluno aluno) {
+        return String.format("Aluno %s removido do repositório", aluno.getNome());
+    }
+}
+
+// Usuários por e-mail (a mesma chave do journal e do banco); um e-mail identifica um único usuário.
+// Logins podem se repetir: o índice de login agrupa os usuários com o login, na ordem de cadastro.
+interface UsuarioRepository extends RepositorioIndexado<Usuario> {
+    String INDICE_LOGIN = "login";
+    
+    Usuario autenticar(Credenciais credenciais);
+    
+    default List<AlunoAutenticavel> listarAlunosAutenticaveis() {
+        return stream()
+            .filter(u -> u instanceof AlunoAutenticavel)
+            .map(u -> (AlunoAutenticavel) u)
+            .collect(Collectors.toList());
+    }
+    
+    // Apenas os usuários com o login são consultados; com o login repetido, vale o primeiro cadastrado cuja senha confere
+    static Usuario autenticarPorLogin(UsuarioRepository repositorio, Credenciais credenciais, Logger logger) {
+        if (credenciais.getLogin() != null) {
+            for (Usuario candidato : repositorio.buscarPorIndice(INDICE_LOGIN, credenciais.getLogin())) {
+                if (!(candidato instanceof Autenticavel)) continue;
+                ResultadoAutenticacao resultado = ((Autenticavel) candidato).autenticar(credenciais);
+                if (resultado.isSucesso()) {
+                    logger.info(resultado.getMensagem());
+                    return candidato;
+                }
+            }
+        }
+        logger.erro("Falha na autenticação para login: " + credenciais.getLogin());
+        return null;
+    }
+}
+
+class UsuarioRepositoryMemoria extends IndexedRepositorio<Usuario> implements UsuarioRepository {
+    public UsuarioRepositoryMemoria(Logger logger) {
+        super(logger, Usuario::getEmail, false);
+        declararIndice(INDICE_LOGIN, u -> u instanceof Autenticavel ? ((Autenticavel) u).getLogin() : null, false);
+    }
+    
+    @Override
+    protected String mensagemSalvo(Usuario usuario) {
+        return String.format("Usuário %s salvo no repositório", usuario.getNome());
+    }
+    
+    @Override
+    protected String mensagemRemovido(Usuario usuario) {
+        return String.format("Usuário %s removido do repositório", usuario.getNome());
+    }
+    
+    // Usuario não tem equals por e-mail: outro usuário com um e-mail já cadastrado é rejeitado, não ignorado
+    @Override
+    protected void aoSalvarIdRepetido(Usuario existente, Usuario usuario) {
+        throw new IllegalStateException(String.format("Já existe um usuário com o email %s", usuario.getEmail()));
+    }
+    
+    @Override
+    public Usuario autenticar(Credenciais credenciais) {
+        return UsuarioRepository.autenticarPorLogin(this, credenciais, logger);
+    }
+}
+
+// Cursos por código, sem distinção de caixa; o nome (também sem caixa) identifica um único curso
+interface CursoRepository extends RepositorioIndexado<Curso> {
+    String INDICE_NOME = "nome";
+    
+    default boolean existePorNome(String nome) {
+        return existePorIndice(INDICE_NOME, nome);
+    }
+    
+    default Curso buscarPorNome(String nome) {
+        return buscarUnicoPorIndice(INDICE_NOME, nome);
+    }
+}
+
+class CursoRepositoryMemoria extends IndexedRepositorio<Curso> implements CursoRepository {
+    public CursoRepositoryMemoria(Logger logger) {
+        super(logger, Curso::getCodigo, true);
+        declararIndiceUnico(INDICE_NOME, Curso::getNome, true);
+    }
+    
+    @Override
+    protected String mensagemSalvo(Curso curso) {
+        return String.format("Curso %s salvo no repositório", curso.getNome());
+    }
+    
+    @Override
+    protected String mensagemRemovido(Curso curso) {
+        return String.format("Curso %s removido do repositório", curso.getNome());
+    }
+}
+
+// Turmas por código; os índices agrupam as turmas por código do curso (sem caixa) e por registro do professor
+interface TurmaRepository extends RepositorioIndexado<Turma> {
+    String INDICE_CURSO = "curso";
+    String INDICE_PROFESSOR = "professor";
+    
+    default boolean existeTurmaComCurso(String codigoCurso) {
+        return existePorIndice(INDICE_CURSO, codigoCurso);
+    }
+    
+    default List<Turma> buscarPorCurso(String codigoCurso) {
+        return buscarPorIndice(INDICE_CURSO, codigoCurso);
+    }
+    
+    default List<Turma> buscarPorProfessor(String registroProfessor) {
+        return buscarPorIndice(INDICE_PROFESSOR, registroProfessor);
+    }
+}
+
+class TurmaRepositoryMemoria extends IndexedRepositorio<Turma> implements TurmaRepository {
+    public TurmaRepositoryMemoria(Logger logger) {
+        super(logger, Turma::getCodigo, false);
+        declararIndice(INDICE_CURSO, t -> t.getCurso().getCodigo(), true);
+        declararIndice(INDICE_PROFESSOR, t -> t.getProfessor().getRegistro(), false);
+    }
     
-    public AvaliacaoRepository(Logger logger) {
+    @Override
+    protected String mensagemSalvo(Turma turma) {
+        return String.format("Turma %s salva no repositório", turma.getCodigo());
+    }
+    
+    @Override
+    protected String mensagemRemovido(Turma turma) {
+        return String.format("Turma %s removida do repositório", turma.getCodigo());
+    }
+}
+
+// Avaliações por turma: salvar as de uma turma já existente substitui as anteriores
+interface AvaliacaoRepository {
+    void salvarAvaliacaoTurma(AvaliacaoTurma avaliacaoTurma);
+    AvaliacaoTurma buscarAvaliacaoTurma(String codigoTurma);
+    List<AvaliacaoTurma> listarAvaliacoesTurma();
+    int getTotalAvaliacoes();
+    boolean existeAvaliacaoTurma(String codigoTurma);
+}
+
+class AvaliacaoRepositoryMemoria implements AvaliacaoRepository {
+    private static final int PARTICOES_ESCRITA = 32;
+    
+    // Avaliações indexadas pelo código da turma. A listagem segue a ordem da primeira inserção: salvar de
+    // novo uma turma já existente mantém a posição dela (antes a turma atualizada ia para o fim da lista),
+    // então listarAvaliacoesTurma e os relatórios não mudam de ordem a cada nota lançada.
+    private final Map<String, Registro> registrosPorTurma = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Registro> ordemInsercao = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequencia = new AtomicLong();
+    private final TravasParticionadas travas = new TravasParticionadas(PARTICOES_ESCRITA);
+    private final List<OuvinteRepositorio<AvaliacaoTurma>> ouvintes = new CopyOnWriteArrayList<>();
+    private final CargaTardia carga = new CargaTardia();
+    private volatile Consumer<Runnable> executorEscritas = Runnable::run;
+    protected final Logger logger;
+    
+    public AvaliacaoRepositoryMemoria(Logger logger) {
         this.logger = logger;
     }
     
+    public void adicionarOuvinte(OuvinteRepositorio<AvaliacaoTurma> ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+    
+    public void definirCargaTardia(Runnable acao) {
+        carga.definir(acao);
+    }
+    
+    // Mesmo papel do executor de IndexedRepositorio: notificação e aplicação executadas como uma unidade
+    public void definirExecutorEscritas(Consumer<Runnable> executor) {
+        executorEscritas = executor;
+    }
+    
+    // Registra as avaliações persistidas de uma turma; a leitura só acontece no primeiro acesso
+    public void restaurarSobDemanda(String codigoTurma, int quantidade, Supplier<AvaliacaoTurma> leitura) {
+        ReentrantLock trava = travas.para(codigoTurma);
+        trava.lock();
+        try {
+            if (!registrosPorTurma.containsKey(codigoTurma)) {
+                Registro registro = new Registro(sequencia.incrementAndGet(), leitura, quantidade);
+                registrosPorTurma.put(codigoTurma, registro);
+                ordemInsercao.put(registro.sequencia, registro);
+            }
+        } finally {
+            trava.unlock();
+        }
+    }
+    
+    public void restaurar(AvaliacaoTurma avaliacaoTurma) {
+        restaurarSobDemanda(avaliacaoTurma.getTurma().getCodigo(),
+            avaliacaoTurma.getQuantidadeAvaliacoesAlunos(), () -> avaliacaoTurma);
+    }
+    
+    @Override
     public void salvarAvaliacaoTurma(AvaliacaoTurma avaliacaoTurma) {
-        // Remover se já existe (atualização)
-        avaliacoesTurma.removeIf(at -> at.getTurma().equals(avaliacaoTurma.getTurma()));
-        avaliacoesTurma.add(avaliacaoTurma);
-        logger.debug(String.format("Avaliações da turma %s salvas", 
-            avaliacaoTurma.getTurma().getCodigo()));
+        carga.garantir();
+        // Substitui a avaliação anterior da turma, se existir (atualização)
+        String codigoTurma = avaliacaoTurma.getTurma().getCodigo();
+        ReentrantLock trava = travas.para(codigoTurma);
+        trava.lock();
+        try {
+            executorEscritas.accept(() -> {
+                ouvintes.forEach(o -> o.aoSalvar(avaliacaoTurma));
+                Registro anterior = registrosPorTurma.get(codigoTurma);
+                long posicao = anterior == null ? sequencia.incrementAndGet() : anterior.sequencia;
+                Registro registro = new Registro(posicao, avaliacaoTurma);
+                registrosPorTurma.put(codigoTurma, registro);
+                ordemInsercao.put(posicao, registro);
+            });
+        } finally {
+            trava.unlock();
+        }
+        
+        logger.debug(String.format("Avaliações da turma %s salvas", codigoTurma));
     }
     
+    @Override
     public AvaliacaoTurma buscarAvaliacaoTurma(String codigoTurma) {
-        return avaliacoesTurma.stream()
-            .filter(at -> at.getTurma().getCodigo().equals(codigoTurma))
-            .findFirst()
-            .orElse(null);
+        if (codigoTurma == null) return null;
+        carga.garantir();
+        Registro registro = registrosPorTurma.get(codigoTurma);
+        return registro == null ? null : registro.avaliacaoTurma();
+    }
+    
+    @Override
+    public List<AvaliacaoTurma> listarAvaliacoesTurma() {
+        carga.garantir();
+        List<AvaliacaoTurma> avaliacoes = new ArrayList<>(ordemInsercao.size());
+        for (Registro registro : ordemInsercao.values()) {
+            avaliacoes.add(registro.avaliacaoTurma());
+        }
+        return avaliacoes;
+    }
+    
+    // Somado a partir das próprias avaliações armazenadas, para refletir alterações feitas sem salvar de novo;
+    // turmas ainda não lidas do disco contam pela quantidade gravada, sem forçar a leitura
+    @Override
+    public int getTotalAvaliacoes() {
+        carga.garantir();
+        int total = 0;
+        for (Registro registro : ordemInsercao.values()) {
+            total += registro.quantidade();
+        }
+        return total;
+    }
+    
+    @Override
+    public boolean existeAvaliacaoTurma(String codigoTurma) {
+        if (codigoTurma == null) return false;
+        carga.garantir();
+        return registrosPorTurma.containsKey(codigoTurma);
+    }
+    
+    private static final class Registro {
+        final long sequencia;
+        // Quantidade gravada de avaliações de alunos, válida enquanto a turma não for lida
+        private final int quantidadeGravada;
+        private Supplier<AvaliacaoTurma> leitura;
+        private volatile AvaliacaoTurma avaliacaoTurma;
+        
+        Registro(long sequencia, Supplier<AvaliacaoTurma> leitura, int quantidadeGravada) {
+            this.sequencia = sequencia;
+            this.leitura = leitura;
+            this.quantidadeGravada = quantidadeGravada;
+        }
+        
+        Registro(long sequencia, AvaliacaoTurma avaliacaoTurma) {
+            this.sequencia = sequencia;
+            this.avaliacaoTurma = avaliacaoTurma;
+            this.quantidadeGravada = 0;
+        }
+        
+        int quantidade() {
+            AvaliacaoTurma atual = avaliacaoTurma;
+            return atual == null ? quantidadeGravada : atual.getQuantidadeAvaliacoesAlunos();
+        }
+        
+        AvaliacaoTurma avaliacaoTurma() {
+            AvaliacaoTurma atual = avaliacaoTurma;
+            if (atual == null) {
+                synchronized (this) {
+                    if (avaliacaoTurma == null) {
+                        avaliacaoTurma = leitura.get();
+                        leitura = null;
+                    }
+                    atual = avaliacaoTurma;
+                }
+            }
+            return atual;
+        }
+    }
+}
+
+// Teste de estresse dos cinco repositórios em memória: threads salvam, removem e buscam em paralelo,
+// disputando também uma chave comum, e ao final os totais e os índices são conferidos.
+// Uso: java TesteConcorrenciaRepositorios [threads] [entidades por thread]   (padrão: 8 2000)
+// Termina com código de saída 1 se alguma atualização se perder ou algum índice divergir.
+final class TesteConcorrenciaRepositorios {
+    static final int THREADS_PADRAO = 8;
+    static final int POR_THREAD_PADRAO = 2000;
+    private static final int GRUPOS = 4;
+    
+    private final int threads;
+    private final int porThread;
+    private final ConcurrentLinkedQueue<String> falhas = new ConcurrentLinkedQueue<>();
+    
+    TesteConcorrenciaRepositorios(int threads, int porThread) {
+        this.threads = threads;
+        this.porThread = porThread;
+    }
+    
+    public static void main(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : THREADS_PADRAO;
+        int porThread = args.length > 1 ? Integer.parseInt(args[1]) : POR_THREAD_PADRAO;
+        List<String> falhas = new TesteConcorrenciaRepositorios(threads, porThread).executar();
+        if (!falhas.isEmpty()) {
+            System.out.println("FALHOU: " + falhas.size() + " inconsistência(s)");
+            falhas.stream().limit(20).forEach(falha -> System.out.println("  " + falha));
+            System.exit(1);
+        }
+        System.out.printf("OK: %d threads x %d entidades por repositório, nenhuma atualização perdida%n",
+            threads, porThread);
+    }
+    
+    // Retorna as inconsistências encontradas (vazia se o teste passou)
+    List<String> executar() {
+        Logger logger = new LoggerSilencioso();
+        Curso curso = new Curso("Curso", "CURSO", 60);
+        
+        AlunoRepositoryMemoria alunos = new AlunoRepositoryMemoria(logger);
+        testar("Alunos", alunos, Aluno::getMatricula,
+            (id, i) -> new Aluno("Aluno " + id, id, "Curso " + (i % GRUPOS)),
+            id -> new Aluno("Aluno Compartilhado", id, "Curso 0"),
+            () -> somarGrupos(grupo -> alunos.buscarPorCurso("curso " + grupo).size()));
+        
+        CursoRepositoryMemoria cursos = new CursoRepositoryMemoria(logger);
+        testar("Cursos", cursos, Curso::getCodigo,
+            (id, i) -> new Curso("Curso " + id, id, 60),
+            id -> new Curso("Curso Compartilhado", id, 60),
+            () -> (int) cursos.stream().filter(c -> cursos.buscarPorNome(c.getNome()) == c).count());
+        
+        TurmaRepositoryMemoria turmas = new TurmaRepositoryMemoria(logger);
+        testar("Turmas", turmas, Turma::getCodigo,
+            (id, i) -> new Turma(id, new Professor("Professor", "POO", "PROF" + (i % GRUPOS)), curso),
+            id -> new Turma(id, new Professor("Professor", "POO", "PROF0"), curso),
+            () -> somarGrupos(grupo -> turmas.buscarPorProfessor("PROF" + grupo).size()));
+        
+        // Outro usuário com um e-mail já cadastrado é rejeitado: todas as threads salvam a mesma instância
+        UsuarioRepositoryMemoria usuarios = new UsuarioRepositoryMemoria(logger);
+        Administrador compartilhado = new Administrador("Usuário Compartilhado", "COMPARTILHADO", "login0", "COMPARTILHADO");
+        testar("Usuários", usuarios, Usuario::getEmail,
+            (id, i) -> new Administrador("Usuário " + id, id, "login" + (i % GRUPOS), id),
+            id -> compartilhado,
+            () -> somarGrupos(grupo -> usuarios.buscarPorIndice("login", "login" + grupo).size()));
+        
+        testarAvaliacoes(new AvaliacaoRepositoryMemoria(logger), curso);
+        return new ArrayList<>(falhas);
+    }
+    
+    // Fase 1: inserções paralelas, cada thread relendo o que salvou e salvando a entidade compartilhada.
+    // Fase 2: remoção das entidades pares enquanto as ímpares são consultadas.
+    private <T> void testar(String nome, IndexedRepositorio<T> repositorio, Function<T, String> extratorId,
+                            BiFunction<String, Integer, T> criar, Function<String, T> criarCompartilhada,
+                            Supplier<Integer> contarPorIndice) {
+        executarEmParalelo(nome, t -> {
+            for (int i = 0; i < porThread; i++) {
+                String id = id(t, i);
+                repositorio.salvar(criar.apply(id, i));
+                repositorio.salvar(criarCompartilhada.apply("COMPARTILHADO"));
+                T lido = repositorio.buscarPorId(id);
+                if (lido == null || !extratorId.apply(lido).equals(id)) {
+                    falhas.add(nome + ": inserção perdida: " + id);
+                }
+            }
+        });
+        
+        executarEmParalelo(nome, t -> {
+            for (int i = 0; i < porThread; i++) {
+                String id = id(t, i);
+                if (i % 2 == 0) {
+                    repositorio.remover(repositorio.buscarPorId(id));
+                    if (repositorio.existe(id)) {
+                        falhas.add(nome + ": remoção perdida: " + id);
+                    }
+                } else if (!repositorio.existe(id)) {
+                    falhas.add(nome + ": entidade não removida sumiu: " + id);
+                }
+            }
+        });
+        
+        int esperado = threads * porThread - threads * ((porThread + 1) / 2) + 1;
+        conferir(nome + ": total", esperado, repositorio.count());
+        conferir(nome + ": listagem", esperado, repositorio.listarTodos().size());
+        conferir(nome + ": índice secundário", esperado, contarPorIndice.get());
+    }
+    
+    // Avaliações não são removidas: cada turma é salva e depois regravada com outra quantidade (atualização)
+    private void testarAvaliacoes(AvaliacaoRepository repositorio, Curso curso) {
+        Professor professor = new Professor("Professor", "POO", "PROF0");
+        Turma compartilhada = new Turma("COMPARTILHADA", professor, curso);
+        executarEmParalelo("Avaliações", t -> {
+            for (int i = 0; i < porThread; i++) {
+                Turma turma = new Turma(id(t, i), professor, curso);
+                repositorio.salvarAvaliacaoTurma(avaliacaoComAlunos(turma, 1));
+                repositorio.salvarAvaliacaoTurma(avaliacaoComAlunos(turma, i % 3));
+                repositorio.salvarAvaliacaoTurma(avaliacaoComAlunos(compartilhada, 1));
+                AvaliacaoTurma lida = repositorio.buscarAvaliacaoTurma(turma.getCodigo());
+                if (lida == null || lida.getQuantidadeAvaliacoesAlunos() != i % 3) {
+                    falhas.add("Avaliações: atualização perdida: " + turma.getCodigo());
+                }
+            }
+        });
+        
+        int esperado = 0;
+        for (int i = 0; i < porThread; i++) {
+            esperado += i % 3;
+        }
+        conferir("Avaliações: total", esperado * threads + 1, repositorio.getTotalAvaliacoes());
+        conferir("Avaliações: turmas", threads * porThread + 1, repositorio.listarAvaliacoesTurma().size());
+    }
+    
+    private static AvaliacaoTurma avaliacaoComAlunos(Turma turma, int quantidade) {
+        AvaliacaoTurma avaliacaoTurma = new AvaliacaoTurma(turma);
+        for (int a = 0; a < quantidade; a++) {
+            avaliacaoTurma.adicionarAvaliacaoAluno(new AvaliacaoAluno(new Aluno("Aluno", turma.getCodigo() + "-" + a, "Curso")));
+        }
+        return avaliacaoTurma;
+    }
+    
+    private static String id(int thread, int i) {
+        return "T" + thread + "-" + i;
+    }
+    
+    private static int somarGrupos(Function<Integer, Integer> contarGrupo) {
+        int total = 0;
+        for (int grupo = 0; grupo < GRUPOS; grupo++) {
+            total += contarGrupo.apply(grupo);
+        }
+        return total;
+    }
+    
+    private void conferir(String descricao, int esperado, int encontrado) {
+        if (esperado != encontrado) {
+            falhas.add(String.format("%s esperado %d, encontrado %d", descricao, esperado, encontrado));
+        }
+    }
+    
+    private void executarEmParalelo(String nome, Consumer<Integer> tarefa) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> execucoes = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                final int indice = t;
+                execucoes.add(executor.submit(() -> {
+                    largada.await();
+                    tarefa.accept(indice);
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> execucao : execucoes) {
+                execucao.get();
+            }
+        } catch (Exception e) {
+            falhas.add(nome + ": erro na execução paralela: " + e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
+
+// ==================== PERSISTÊNCIA (JOURNAL) ====================
+// Tipos de entidade persistidos; a ordem declarada é a ordem de carga (dependências primeiro)
+enum TipoEntidade {
+    CURSO, ALUNO, USUARIO, TURMA, AVALIACAO_TURMA;
+    
+    byte getCodigo() {
+        return (byte) ordinal();
+    }
+    
+    static TipoEntidade deCodigo(byte codigo) {
+        TipoEntidade[] tipos = values();
+        if (codigo < 0 || codigo >= tipos.length) {
+            throw new IllegalArgumentException("Tipo de entidade desconhecido: " + codigo);
+        }
+        return tipos[codigo];
+    }
+}
+
+// Resolve referências entre entidades durante a leitura (turma -> curso/alunos, avaliação -> turma/alunos)
+class ResolvedorReferencias {
+    private final CursoRepository cursoRepository;
+    private final AlunoRepository alunoRepository;
+    private final TurmaRepository turmaRepository;
+    // Sob demanda, referências a alunos em rosters são resolvidas apenas quando o roster é acessado
+    private final boolean sobDemanda;
+    
+    public ResolvedorReferencias(CursoRepository cursoRepository, AlunoRepository alunoRepository,
+                                 TurmaRepository turmaRepository, boolean sobDemanda) {
+        this.cursoRepository = cursoRepository;
+        this.alunoRepository = alunoRepository;
+        this.turmaRepository = turmaRepository;
+        this.sobDemanda = sobDemanda;
+    }
+    
+    public boolean isSobDemanda() { return sobDemanda; }
+    
+    public Curso curso(String codigo) { return cursoRepository.buscarPorId(codigo); }
+    public Aluno aluno(String matricula) { return alunoRepository.buscarPorId(matricula); }
+    public Turma turma(String codigo) { return turmaRepository.buscarPorId(codigo); }
+}
+
+// Serialização binária de uma entidade: textos como int (tamanho) + bytes UTF-8
+interface CodecEntidade<T> {
+    TipoEntidade getTipo();
+    String chave(T entidade);
+    void escrever(T entidade, DataOutputStream saida) throws IOException;
+    T ler(ByteBuffer entrada, ResolvedorReferencias referencias);
+    
+    default byte[] codificar(T entidade) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream saida = new DataOutputStream(bytes)) {
+            escrever(entidade, saida);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
+
+final class CodecsEntidades {
+    private static final byte CURSO_REGULAR = 0;
+    private static final byte CURSO_PRESENCIAL = 1;
+    private static final byte CURSO_EAD = 2;
+    private static final byte USUARIO_ALUNO = 0;
+    private static final byte USUARIO_PROFESSOR = 1;
+    private static final byte USUARIO_ADMINISTRADOR = 2;
+    
+    private CodecsEntidades() { }
+    
+    static final CodecEntidade<Curso> CURSO = new CodecEntidade<>() {
+        @Override public TipoEntidade getTipo() { return TipoEntidade.CURSO; }
+        
+        @Override
+        public String chave(Curso curso) {
+            return IndexedRepositorio.normalizar(curso.getCodigo(), true);
+        }
+        
+        @Override
+        public void escrever(Curso curso, DataOutputStream saida) throws IOException {
+            if (curso instanceof CursoPresencial) {
+                saida.writeByte(CURSO_PRESENCIAL);
+            } else if (curso instanceof CursoEAD) {
+                saida.writeByte(CURSO_EAD);
+            } else {
+                saida.writeByte(CURSO_REGULAR);
+            }
+            escreverTexto(saida, curso.getNome());
+            escreverTexto(saida, curso.getCodigo());
+            saida.writeInt(curso.getCargaHoraria());
+            if (curso instanceof CursoPresencial) {
+                escreverTexto(saida, ((CursoPresencial) curso).getSala());
+            } else if (curso instanceof CursoEAD) {
+                escreverTexto(saida, ((CursoEAD) curso).getPlataforma());
+            }
+        }
+        
+        @Override
+        public Curso ler(ByteBuffer entrada, ResolvedorReferencias referencias) {
+            byte tipo = entrada.get();
+            String nome = lerTexto(entrada);
+            String codigo = lerTexto(entrada);
+            int cargaHoraria = entrada.getInt();
+            switch (tipo) {
+                case CURSO_PRESENCIAL: return new CursoPresencial(nome, codigo, cargaHoraria, lerTexto(entrada));
+                case CURSO_EAD: return new CursoEAD(nome, codigo, cargaHoraria, lerTexto(entrada));
+                default: return new Curso(nome, codigo, cargaHoraria);
+            }
+        }
+    };
+    
+    static final CodecEntidade<Aluno> ALUNO = new CodecEntidade<>() {
+        @Override public TipoEntidade getTipo() { return TipoEntidade.ALUNO; }
+        @Override public String chave(Aluno aluno) { return aluno.getMatricula(); }
+        
+        @Override
+        public void escrever(Aluno aluno, DataOutputStream saida) throws IOException {
+            escreverTexto(saida, aluno.getNome());
+            escreverTexto(saida, aluno.getMatricula());
+            escreverTexto(saida, aluno.getCurso());
+        }
+        
+        @Override
+        public Aluno ler(ByteBuffer entrada, ResolvedorReferencias referencias) {
+            return new Aluno(lerTexto(entrada), lerTexto(entrada), lerTexto(entrada));
+        }
+    };
+    
+    static final CodecEntidade<Usuario> USUARIO = new CodecEntidade<>() {
+        @Override public TipoEntidade getTipo() { return TipoEntidade.USUARIO; }
+        @Override public String chave(Usuario usuario) { return usuario.getEmail(); }
+        
+        @Override
+        public void escrever(Usuario usuario, DataOutputStream saida) throws IOException {
+            if (usuario instanceof AlunoAutenticavel) {
+                AlunoAutenticavel aluno = (AlunoAutenticavel) usuario;
+                saida.writeByte(USUARIO_ALUNO);
+                escreverTexto(saida, aluno.getNome());
+                escreverTexto(saida, aluno.getEmail());
+                escreverTexto(saida, aluno.getMatricula());
+                escreverTexto(saida, aluno.getLogin());
+                escreverTexto(saida, aluno.getSenhaHash());
+                escreverAvaliacoes(saida, aluno.getAvaliacoes());
+            } else if (usuario instanceof ProfessorAutenticavel) {
+                ProfessorAutenticavel professor = (ProfessorAutenticavel) usuario;
+                saida.writeByte(USUARIO_PROFESSOR);
+                escreverTexto(saida, professor.getNome());
+                escreverTexto(saida, professor.getEmail());
+                escreverTexto(saida, professor.getEspecialidade());
+                escreverTexto(saida, professor.getRegistro());
+                escreverTexto(saida, professor.getLogin());
+                escreverTexto(saida, professor.getSenhaHash());
+            } else if (usuario instanceof Administrador) {
+                Administrador admin = (Administrador) usuario;
+                saida.writeByte(USUARIO_ADMINISTRADOR);
+                escreverTexto(saida, admin.getNome());
+                escreverTexto(saida, admin.getEmail());
+                escreverTexto(saida, admin.getLogin());
+                escreverTexto(saida, admin.getSenhaHash());
+            } else {
+                throw new IllegalArgumentException("Tipo de usuário não persistível: " + usuario.getTipo());
+            }
+        }
+        
+        @Override
+        public Usuario ler(ByteBuffer entrada, ResolvedorReferencias referencias) {
+            byte tipo = entrada.get();
+            switch (tipo) {
+                case USUARIO_ALUNO: {
+                    AlunoAutenticavel aluno = AlunoAutenticavel.restaurar(lerTexto(entrada), lerTexto(entrada),
+                        lerTexto(entrada), lerTexto(entrada), lerTexto(entrada));
+                    lerAvaliacoes(entrada).forEach(aluno::adicionarAvaliacao);
+                    return aluno;
+                }
+                case USUARIO_PROFESSOR:
+                    return ProfessorAutenticavel.restaurar(lerTexto(entrada), lerTexto(entrada),
+                        lerTexto(entrada), lerTexto(entrada), lerTexto(entrada), lerTexto(entrada));
+                case USUARIO_ADMINISTRADOR:
+                    return Administrador.restaurar(lerTexto(entrada), lerTexto(entrada),
+                        lerTexto(entrada), lerTexto(entrada));
+                default:
+                    throw new IllegalArgumentException("Tipo de usuário desconhecido: " + tipo);
+            }
+        }
+    };
+    
+    static final CodecEntidade<Turma> TURMA = new CodecEntidade<>() {
+        @Override public TipoEntidade getTipo() { return TipoEntidade.TURMA; }
+        @Override public String chave(Turma turma) { return turma.getCodigo(); }
+        
+        @Override
+        public void escrever(Turma turma, DataOutputStream saida) throws IOException {
+            Professor professor = turma.getProfessor();
+            escreverTexto(saida, turma.getCodigo());
+            escreverTexto(saida, professor.getNome());
+            escreverTexto(saida, professor.getEspecialidade());
+            escreverTexto(saida, professor.getRegistro());
+            escreverTexto(saida, turma.getCurso().getCodigo());
+            // Cópia do roster: o snapshot codifica turmas que outras threads podem estar alterando
+            List<Aluno> alunos = turma.getAlunos();
+            saida.writeInt(alunos.size());
+            for (Aluno aluno : alunos) {
+                escreverTexto(saida, aluno.getMatricula());
+            }
+        }
+        
+        @Override
+        public Turma ler(ByteBuffer entrada, ResolvedorReferencias referencias) {
+            String codigo = lerTexto(entrada);
+            Professor professor = new Professor(lerTexto(entrada), lerTexto(entrada), lerTexto(entrada));
+            String codigoCurso = lerTexto(entrada);
+            Curso curso = referencias.curso(codigoCurso);
+            if (curso == null) {
+                throw new IllegalStateException(String.format(
+                    "Turma %s referencia curso inexistente: %s", codigo, codigoCurso));
+            }
+            Turma turma = new Turma(codigo, professor, curso);
+            int quantidade = entrada.getInt();
+            if (referencias.isSobDemanda()) {
+                List<String> matriculas = new ArrayList<>(quantidade);
+                for (int i = 0; i < quantidade; i++) {
+                    matriculas.add(lerTexto(entrada));
+                }
+                turma.adiarAlunos(matriculas, referencias::aluno);
+                return turma;
+            }
+            for (int i = 0; i < quantidade; i++) {
+                Aluno aluno = referencias.aluno(lerTexto(entrada));
+                if (aluno != null) {
+                    turma.adicionarAluno(aluno);
+                }
+            }
+            return turma;
+        }
+    };
+    
+    static final CodecEntidade<AvaliacaoTurma> AVALIACAO_TURMA = new CodecEntidade<>() {
+        @Override public TipoEntidade getTipo() { return TipoEntidade.AVALIACAO_TURMA; }
+        @Override public String chave(AvaliacaoTurma avaliacaoTurma) { return avaliacaoTurma.getTurma().getCodigo(); }
+        
+        @Override
+        public void escrever(AvaliacaoTurma avaliacaoTurma, DataOutputStream saida) throws IOException {
+            escreverTexto(saida, avaliacaoTurma.getTurma().getCodigo());
+            List<AvaliacaoAluno> avaliacoesAlunos = avaliacaoTurma.getAvaliacoesAlunos();
+            saida.writeInt(avaliacoesAlunos.size());
+            for (AvaliacaoAluno avaliacaoAluno : avaliacoesAlunos) {
+                escreverTexto(saida, avaliacaoAluno.getAluno().getMatricula());
+                escreverAvaliacoes(saida, avaliacaoAluno.getAvaliacoes());
+            }
+        }
+        
+        @Override
+        public AvaliacaoTurma ler(ByteBuffer entrada, ResolvedorReferencias referencias) {
+            String codigoTurma = lerTexto(entrada);
+            Turma turma = referencias.turma(codigoTurma);
+            if (turma == null) {
+                throw new IllegalStateException("Avaliações referenciam turma inexistente: " + codigoTurma);
+            }
+            AvaliacaoTurma avaliacaoTurma = new AvaliacaoTurma(turma);
+            int quantidade = entrada.getInt();
+            for (int i = 0; i < quantidade; i++) {
+                Aluno aluno = referencias.aluno(lerTexto(entrada));
+                List<Avaliacao> avaliacoes = lerAvaliacoes(entrada);
+                if (aluno != null) {
+                    AvaliacaoAluno avaliacaoAluno = new AvaliacaoAluno(aluno);
+                    avaliacoes.forEach(avaliacaoAluno::adicionarAvaliacao);
+                    avaliacaoTurma.adicionarAvaliacaoAluno(avaliacaoAluno);
+                }
+            }
+            return avaliacaoTurma;
+        }
+    };
+    
+    // Quantidade de alunos avaliados, lida do cabeçalho do registro sem decodificar as avaliações
+    static int contarAvaliacoesAlunos(ByteBuffer entrada) {
+        int tamanhoCodigo = entrada.getInt();
+        entrada.position(entrada.position() + Math.max(tamanhoCodigo, 0));
+        return entrada.getInt();
+    }
+    
+    static void escreverTexto(DataOutputStream saida, String texto) throws IOException {
+        if (texto == null) {
+            saida.writeInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        saida.writeInt(bytes.length);
+        saida.write(bytes);
+    }
+    
+    static String lerTexto(ByteBuffer entrada) {
+        int tamanho = entrada.getInt();
+        if (tamanho < 0) return null;
+        byte[] bytes = new byte[tamanho];
+        entrada.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static void escreverAvaliacoes(DataOutputStream saida, List<Avaliacao> avaliacoes) throws IOException {
+        saida.writeInt(avaliacoes.size());
+        for (Avaliacao avaliacao : avaliacoes) {
+            escreverTexto(saida, avaliacao.getDescricao());
+            escreverTexto(saida, avaliacao.getTipo());
+            saida.writeDouble(avaliacao.getPeso());
+            saida.writeDouble(avaliacao.getNota());
+        }
+    }
+    
+    private static List<Avaliacao> lerAvaliacoes(ByteBuffer entrada) {
+        int quantidade = entrada.getInt();
+        List<Avaliacao> avaliacoes = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Avaliacao avaliacao = new Avaliacao(lerTexto(entrada), lerTexto(entrada), entrada.getDouble());
+            avaliacao.atribuirNota(entrada.getDouble());
+            avaliacoes.add(avaliacao);
+        }
+        return avaliacoes;
+    }
+}
+
+// Registro lido do journal: operação, tipo e chave da entidade, e seus dados serializados
+class RegistroJournal {
+    private final byte operacao;
+    private final TipoEntidade tipo;
+    private final String chave;
+    private final ByteBuffer dados;
+    
+    RegistroJournal(byte operacao, TipoEntidade tipo, String chave, ByteBuffer dados) {
+        this.operacao = operacao;
+        this.tipo = tipo;
+        this.chave = chave;
+        this.dados = dados;
+    }
+    
+    public byte getOperacao() { return operacao; }
+    public TipoEntidade getTipo() { return tipo; }
+    public String getChave() { return chave; }
+    public ByteBuffer getDados() { return dados.duplicate(); }
+}
+
+// Journal de escrita antecipada (append-only) com group commit: vários registros pendentes
+// são gravados juntos e confirmados por um único fsync.
+// Formato do registro: [int tamanho][int crc32][byte operação][byte tipo][texto chave][dados]
+class JournalEscritaAntecipada implements Closeable {
+    static final byte OPERACAO_SALVAR = 1;
+    static final byte OPERACAO_REMOVER = 2;
+    private static final int CABECALHO_REGISTRO = 8;
+    private static final int MAXIMO_POR_LOTE = 1024;
+    private static final int BLOCO_LEITURA = 1 << 20;
+    private static final Pendente FIM = new Pendente(null);
+    
+    private final FileChannel canal;
+    private final BlockingQueue<Pendente> fila = new LinkedBlockingQueue<>();
+    private final Thread escritor;
+    private final AtomicLong registrosGravados = new AtomicLong();
+    private final AtomicLong lotesGravados = new AtomicLong();
+    // Guardados pela trava do journal; com encerrando, nada mais entra na fila (close iniciado ou escritor terminado)
+    private boolean encerrando;
+    private boolean fechado;
+    
+    private JournalEscritaAntecipada(FileChannel canal) {
+        this.canal = canal;
+        this.escritor = new Thread(this::gravarLotes, "journal-group-commit");
+        this.escritor.setDaemon(true);
+    }
+    
+    // Abre o journal, reaplica os registros válidos e descarta uma cauda incompleta (escrita interrompida).
+    // Os dados entregues a aoRecuperar valem só durante a chamada: o bloco de leitura é reaproveitado.
+    static JournalEscritaAntecipada abrir(Path arquivo, Consumer<RegistroJournal> aoRecuperar) throws IOException {
+        FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long fimValido = recuperar(canal, aoRecuperar);
+        if (fimValido < canal.size()) {
+            canal.truncate(fimValido);
+            canal.force(true);
+        }
+        canal.position(fimValido);
+        JournalEscritaAntecipada journal = new JournalEscritaAntecipada(canal);
+        journal.escritor.start();
+        return journal;
+    }
+    
+    // Lê o journal pelo canal, em blocos (sem mapear o arquivo, que é truncado depois de cada snapshot);
+    // as posições são long, então um journal maior que 2 GB também é recuperado
+    private static long recuperar(FileChannel canal, Consumer<RegistroJournal> aoRecuperar) throws IOException {
+        long tamanhoArquivo = canal.size();
+        LeitorBlocos leitor = new LeitorBlocos(canal);
+        CRC32 crc = new CRC32();
+        long inicio = 0;
+        while (leitor.garantir(CABECALHO_REGISTRO)) {
+            int tamanho = leitor.bloco.getInt();
+            int checksum = leitor.bloco.getInt();
+            if (tamanho <= 0 || tamanho > tamanhoArquivo - inicio - CABECALHO_REGISTRO || !leitor.garantir(tamanho)) {
+                return inicio;
+            }
+            ByteBuffer corpo = leitor.bloco.slice().limit(tamanho);
+            crc.reset();
+            crc.update(corpo.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                return inicio;
+            }
+            byte operacao = corpo.get();
+            TipoEntidade tipo = TipoEntidade.deCodigo(corpo.get());
+            String chave = CodecsEntidades.lerTexto(corpo);
+            aoRecuperar.accept(new RegistroJournal(operacao, tipo, chave, corpo.slice()));
+            leitor.bloco.position(leitor.bloco.position() + tamanho);
+            inicio += CABECALHO_REGISTRO + tamanho;
+        }
+        return inicio;
+    }
+    
+    // Grava o registro e só retorna depois que ele estiver em disco (fsync do lote). Não bloqueia para
+    // sempre: um registro aceito é gravado antes do close terminar, ou falha se o escritor terminar antes.
+    public void registrar(byte operacao, TipoEntidade tipo, String chave, byte[] dados) {
+        Pendente pendente = new Pendente(montarRegistro(operacao, tipo, chave, dados));
+        enfileirar(pendente);
+        try {
+            pendente.concluido.join();
+        } catch (CompletionException e) {
+            throw new UncheckedIOException("Falha ao gravar no journal", 
+                e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause()));
+        }
+    }
+    
+    // Entra na fila antes do FIM do close ou é rejeitado; nunca fica depois dele sem ser gravado
+    private synchronized void enfileirar(Pendente pendente) {
+        if (encerrando) {
+            throw new IllegalStateException("Journal fechado");
+        }
+        fila.add(pendente);
+    }
+    
+    private static ByteBuffer montarRegistro(byte operacao, TipoEntidade tipo, String chave, byte[] dados) {
+        byte[] chaveBytes = chave.getBytes(StandardCharsets.UTF_8);
+        int tamanho = 2 + 4 + chaveBytes.length + dados.length;
+        ByteBuffer registro = ByteBuffer.allocate(CABECALHO_REGISTRO + tamanho);
+        registro.putInt(tamanho).putInt(0);
+        registro.put(operacao).put(tipo.getCodigo()).putInt(chaveBytes.length).put(chaveBytes).put(dados);
+        CRC32 crc = new CRC32();
+        crc.update(registro.array(), CABECALHO_REGISTRO, tamanho);
+        registro.putInt(4, (int) crc.getValue());
+        registro.flip();
+        return registro;
+    }
+    
+    private void gravarLotes() {
+        List<Pendente> lote = new ArrayList<>(MAXIMO_POR_LOTE);
+        Throwable causa = null;
+        try {
+            boolean encerrar = false;
+            while (!encerrar) {
+                lote.add(fila.take());
+                fila.drainTo(lote, MAXIMO_POR_LOTE - 1);
+                encerrar = lote.remove(FIM);
+                if (!lote.isEmpty()) {
+                    gravar(lote);
+                }
+                lote.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            causa = e;
+        } catch (RuntimeException | Error e) {
+            causa = e;
+            throw e;
+        } finally {
+            // Sem escritor, quem ainda espera na fila (ou no lote interrompido) nunca receberia resposta
+            synchronized (this) {
+                encerrando = true;
+            }
+            IOException falha = new IOException("Escritor do journal encerrado", causa);
+            lote.forEach(p -> p.concluido.completeExceptionally(falha));
+            falharPendentes(falha);
+        }
+    }
+    
+    private void falharPendentes(IOException falha) {
+        Pendente pendente;
+        while ((pendente = fila.poll()) != null) {
+            if (pendente != FIM) {
+                pendente.concluido.completeExceptionally(falha);
+            }
+        }
+    }
+    
+    private void gravar(List<Pendente> lote) {
+        try {
+            ByteBuffer[] registros = new ByteBuffer[lote.size()];
+            for (int i = 0; i < registros.length; i++) {
+                registros[i] = lote.get(i).registro;
+            }
+            long restante = 0;
+            for (ByteBuffer registro : registros) {
+                restante += registro.remaining();
+            }
+            while (restante > 0) {
+                restante -= canal.write(registros);
+            }
+            canal.force(false);
+            registrosGravados.addAndGet(lote.size());
+            lotesGravados.incrementAndGet();
+            lote.forEach(p -> p.concluido.complete(null));
+        } catch (IOException e) {
+            lote.forEach(p -> p.concluido.completeExceptionally(e));
+        }
+    }
+    
+    // Descarta todos os registros; só deve ser chamado sem gravações em andamento (após um snapshot)
+    public void truncar() throws IOException {
+        canal.truncate(0);
+        canal.position(0);
+        canal.force(true);
+    }
+    
+    public long getRegistrosGravados() { return registrosGravados.get(); }
+    public long getLotesGravados() { return lotesGravados.get(); }
+    
+    // Os registros aceitos antes do close são gravados; os que chegarem depois são rejeitados
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (fechado) return;
+            fechado = true;
+            if (!encerrando) {
+                encerrando = true;
+                fila.add(FIM);
+            }
+        }
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Escritor interrompido durante o join, ou terminado antes: ninguém fica esperando
+        falharPendentes(new IOException("Journal fechado"));
+        canal.close();
+    }
+    
+    // Janela de leitura sequencial do arquivo; um registro maior que o bloco ganha um bloco do seu tamanho
+    private static final class LeitorBlocos {
+        private final FileChannel canal;
+        private long posicaoArquivo;
+        ByteBuffer bloco = ByteBuffer.allocate(BLOCO_LEITURA).flip();
+        
+        LeitorBlocos(FileChannel canal) {
+            this.canal = canal;
+        }
+        
+        // Garante ao menos n bytes não lidos no bloco; false se o arquivo acabar antes
+        boolean garantir(int n) throws IOException {
+            if (bloco.remaining() >= n) return true;
+            if (bloco.capacity() < n) {
+                bloco = ByteBuffer.allocate(n).put(bloco);
+            } else {
+                bloco.compact();
+            }
+            while (bloco.position() < n) {
+                int lidos = canal.read(bloco, posicaoArquivo);
+                if (lidos < 0) break;
+                posicaoArquivo += lidos;
+            }
+            bloco.flip();
+            return bloco.remaining() >= n;
+        }
+    }
+    
+    private static final class Pendente {
+        final ByteBuffer registro;
+        final CompletableFuture<Void> concluido = new CompletableFuture<>();
+        
+        Pendente(ByteBuffer registro) {
+            this.registro = registro;
+        }
+    }
+}
+
+// Estado reconstruído dos registros persistidos: último valor de cada chave, por tipo.
+// Cada tipo só é materializado (seção do snapshot + registros do journal) quando consultado.
+class EstadoPersistido {
+    private final Map<TipoEntidade, SnapshotBinario.Secao> secoes = new EnumMap<>(TipoEntidade.class);
+    private final Map<TipoEntidade, List<RegistroJournal>> journal = new EnumMap<>(TipoEntidade.class);
+    private final Map<TipoEntidade, Map<String, ByteBuffer>> materializados = new ConcurrentHashMap<>();
+    
+    public EstadoPersistido() {
+        for (TipoEntidade tipo : TipoEntidade.values()) {
+            journal.put(tipo, new ArrayList<>());
+        }
+    }
+    
+    void definirSecao(TipoEntidade tipo, SnapshotBinario.Secao secao) {
+        secoes.put(tipo, secao);
+    }
+    
+    // Os dados são copiados: o leitor do journal reaproveita o bloco de leitura nos registros seguintes
+    public void aplicar(RegistroJournal registro) {
+        ByteBuffer copia = ByteBuffer.allocate(registro.getDados().remaining());
+        copia.put(registro.getDados().duplicate()).flip();
+        journal.get(registro.getTipo()).add(new RegistroJournal(
+            registro.getOperacao(), registro.getTipo(), registro.getChave(), copia));
+    }
+    
+    // Tipos distintos podem ser materializados em paralelo (um segmento por tipo)
+    public Map<String, ByteBuffer> registros(TipoEntidade tipo) {
+        List<RegistroJournal> pendentes = journal.get(tipo);
+        synchronized (pendentes) {
+            Map<String, ByteBuffer> existentes = materializados.get(tipo);
+            if (existentes != null) {
+                return existentes;
+            }
+            LinkedHashMap<String, ByteBuffer> registros = new LinkedHashMap<>();
+            SnapshotBinario.Secao secao = secoes.get(tipo);
+            if (secao != null) {
+                secao.ler(registros::put);
+            }
+            for (RegistroJournal registro : pendentes) {
+                if (registro.getOperacao() == JournalEscritaAntecipada.OPERACAO_REMOVER) {
+                    registros.remove(registro.getChave());
+                } else {
+                    registros.put(registro.getChave(), registro.getDados());
+                }
+            }
+            pendentes.clear();
+            Map<String, ByteBuffer> resultado = Collections.unmodifiableMap(registros);
+            materializados.put(tipo, resultado);
+            return resultado;
+        }
+    }
+    
+    // Consulta barata (sem materializar): há registros no snapshot ou alterações no journal
+    public boolean possuiRegistros() {
+        return secoes.values().stream().anyMatch(secao -> secao.getQuantidade() > 0)
+            || journal.values().stream().anyMatch(registros -> !registros.isEmpty());
+    }
+}
+
+// Snapshot binário compacto, com um arquivo de segmento por tipo de entidade, lido pelo canal do arquivo.
+// Cada geração fica em seu próprio diretório (snapshot-<geração>); o manifesto aponta a geração vigente
+// e só é trocado (atomicamente) depois que todos os segmentos estão em disco.
+// Segmento: [int mágico][int versão][byte tipo][int registros][int crc32 dos registros]
+//           registro: [texto chave][int tamanho][dados do codec]
+final class SnapshotBinario {
+    private static final int MAGICO = 0x45445553; // "EDUS"
+    private static final int VERSAO = 3;
+    private static final int TAMANHO_CABECALHO = 4 + 4 + 1 + 4 + 4;
+    private static final int BUFFER_ESCRITA = 1 << 20;
+    private static final String ARQUIVO_MANIFESTO = "snapshot.atual";
+    private static final String PREFIXO_GERACAO = "snapshot-";
+    
+    private SnapshotBinario() { }
+    
+    // Grava uma nova geração de segmentos e a torna vigente; retorna o total de registros gravados
+    static int gravar(Path diretorio, SistemaEducacionalService service) throws IOException {
+        long anterior = geracaoAtual(diretorio);
+        long geracao = anterior + 1;
+        Path destino = diretorio.resolve(PREFIXO_GERACAO + geracao);
+        Files.createDirectories(destino);
+        
+        int total = 0;
+        total += gravarSegmento(destino, CodecsEntidades.CURSO, service.getCursoRepository().stream());
+        total += gravarSegmento(destino, CodecsEntidades.ALUNO, service.getAlunoRepository().stream());
+        total += gravarSegmento(destino, CodecsEntidades.USUARIO, service.getUsuarioRepository().stream());
+        total += gravarSegmento(destino, CodecsEntidades.TURMA, service.getTurmaRepository().stream());
+        total += gravarSegmento(destino, CodecsEntidades.AVALIACAO_TURMA,
+            service.getAvaliacaoRepository().listarAvaliacoesTurma().stream());
+        
+        Path manifesto = diretorio.resolve(ARQUIVO_MANIFESTO);
+        Path temporario = diretorio.resolve(ARQUIVO_MANIFESTO + ".tmp");
+        Files.write(temporario, Long.toString(geracao).getBytes(StandardCharsets.UTF_8));
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.WRITE)) {
+            canal.force(true);
+        }
+        Files.move(temporario, manifesto, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        
+        // Percorrer os repositórios acima concluiu as cargas pendentes: nenhum segmento anterior será lido
+        removerGeracao(diretorio.resolve(PREFIXO_GERACAO + anterior));
+        return total;
+    }
+    
+    private static <T> int gravarSegmento(Path destino, CodecEntidade<T> codec, Stream<T> entidades) throws IOException {
+        Path arquivo = arquivoSegmento(destino, codec.getTipo());
+        int quantidade = 0;
+        CRC32 crc = new CRC32();
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream saida = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(
+                Channels.newOutputStream(canal.position(TAMANHO_CABECALHO)), BUFFER_ESCRITA), crc));
+            for (T entidade : (Iterable<T>) entidades::iterator) {
+                CodecsEntidades.escreverTexto(saida, codec.chave(entidade));
+                byte[] dados = codec.codificar(entidade);
+                saida.writeInt(dados.length);
+                saida.write(dados);
+                quantidade++;
+            }
+            saida.flush();
+            
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+            cabecalho.putInt(MAGICO).putInt(VERSAO).put(codec.getTipo().getCodigo())
+                .putInt(quantidade).putInt((int) crc.getValue()).flip();
+            while (cabecalho.hasRemaining()) {
+                canal.write(cabecalho, cabecalho.position());
+                cabecalho.position(cabecalho.limit());
+            }
+            canal.force(true);
+        }
+        return quantidade;
+    }
+    
+    // Lê só os cabeçalhos dos segmentos da geração vigente e os registra no estado;
+    // os registros são lidos quando cada tipo é materializado
+    static int carregar(Path diretorio, EstadoPersistido estado) throws IOException {
+        long geracao = geracaoAtual(diretorio);
+        if (geracao == 0) return 0;
+        Path origem = diretorio.resolve(PREFIXO_GERACAO + geracao);
+        int total = 0;
+        for (TipoEntidade tipo : TipoEntidade.values()) {
+            Path arquivo = arquivoSegmento(origem, tipo);
+            try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+                ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+                while (cabecalho.hasRemaining()) {
+                    if (canal.read(cabecalho) < 0) break;
+                }
+                cabecalho.flip();
+                if (cabecalho.remaining() < TAMANHO_CABECALHO || cabecalho.getInt() != MAGICO
+                        || cabecalho.getInt() != VERSAO || TipoEntidade.deCodigo(cabecalho.get()) != tipo) {
+                    throw new IOException("Segmento de snapshot inválido: " + arquivo);
+                }
+                int quantidade = cabecalho.getInt();
+                int crc = cabecalho.getInt();
+                estado.definirSecao(tipo, new Secao(arquivo, tipo, quantidade, crc));
+                total += quantidade;
+            }
+        }
+        return total;
+    }
+    
+    private static long geracaoAtual(Path diretorio) throws IOException {
+        Path manifesto = diretorio.resolve(ARQUIVO_MANIFESTO);
+        if (!Files.exists(manifesto)) return 0;
+        String conteudo = new String(Files.readAllBytes(manifesto), StandardCharsets.UTF_8).trim();
+        try {
+            return Long.parseLong(conteudo);
+        } catch (NumberFormatException e) {
+            throw new IOException("Manifesto de snapshot inválido: " + conteudo, e);
+        }
+    }
+    
+    private static Path arquivoSegmento(Path geracao, TipoEntidade tipo) {
+        return geracao.resolve(tipo.name().toLowerCase(Locale.ROOT) + ".seg");
+    }
+    
+    private static void removerGeracao(Path geracao) throws IOException {
+        if (!Files.isDirectory(geracao)) return;
+        for (TipoEntidade tipo : TipoEntidade.values()) {
+            Files.deleteIfExists(arquivoSegmento(geracao, tipo));
+        }
+        Files.deleteIfExists(geracao);
+    }
+    
+    // Segmento de um tipo de entidade, ainda não lido; o arquivo só fica aberto durante a leitura
+    static final class Secao {
+        private final Path arquivo;
+        private final TipoEntidade tipo;
+        private final int quantidade;
+        private final int crc;
+        
+        Secao(Path arquivo, TipoEntidade tipo, int quantidade, int crc) {
+            this.arquivo = arquivo;
+            this.tipo = tipo;
+            this.quantidade = quantidade;
+            this.crc = crc;
+        }
+        
+        int getQuantidade() { return quantidade; }
+        
+        // Lê o segmento em sequência e entrega os dados de cada registro; o crc é conferido ao final,
+        // então o destino deve descartar o que recebeu se a leitura lançar exceção
+        void ler(BiConsumer<String, ByteBuffer> destino) {
+            CRC32 verificacao = new CRC32();
+            try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+                DataInputStream entrada = new DataInputStream(new CheckedInputStream(new BufferedInputStream(
+                    Channels.newInputStream(canal.position(TAMANHO_CABECALHO)), BUFFER_ESCRITA), verificacao));
+                for (int r = 0; r < quantidade; r++) {
+                    String chave = lerTexto(entrada);
+                    byte[] dados = new byte[entrada.readInt()];
+                    entrada.readFully(dados);
+                    destino.accept(chave, ByteBuffer.wrap(dados));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao ler segmento " + tipo + ": " + arquivo, e);
+            }
+            if ((int) verificacao.getValue() != crc) {
+                throw new UncheckedIOException(new IOException(String.format(
+                    "Snapshot corrompido (crc divergente no segmento %s): %s", tipo, arquivo)));
+            }
+        }
+        
+        private static String lerTexto(DataInputStream entrada) throws IOException {
+            int tamanho = entrada.readInt();
+            if (tamanho < 0) return null;
+            byte[] bytes = new byte[tamanho];
+            entrada.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
+
+// Repositórios em memória de um serviço persistente: a persistência os hidrata, e não os contratos do
+// serviço, porque restauração, carga tardia e ouvintes só existem com as entidades em memória
+final class RepositoriosMemoria {
+    final CursoRepositoryMemoria cursos;
+    final AlunoRepositoryMemoria alunos;
+    final UsuarioRepositoryMemoria usuarios;
+    final TurmaRepositoryMemoria turmas;
+    final AvaliacaoRepositoryMemoria avaliacoes;
+    
+    RepositoriosMemoria(Logger logger) {
+        this.cursos = new CursoRepositoryMemoria(logger);
+        this.alunos = new AlunoRepositoryMemoria(logger);
+        this.usuarios = new UsuarioRepositoryMemoria(logger);
+        this.turmas = new TurmaRepositoryMemoria(logger);
+        this.avaliacoes = new AvaliacaoRepositoryMemoria(logger);
+    }
+}
+
+// Liga os repositórios ao journal: recupera o estado na abertura (snapshot + journal),
+// registra cada mutação e gera um novo snapshot a cada intervaloSnapshot registros
+class PersistenciaSistema implements Closeable {
+    private static final String ARQUIVO_JOURNAL = "journal.log";
+    static final int INTERVALO_SNAPSHOT_PADRAO = 10_000;
+    
+    private final Path diretorio;
+    private final JournalEscritaAntecipada journal;
+    private final int intervaloSnapshot;
+    // Mutações seguram a trava de leitura do registro no journal até a aplicação em memória;
+    // o snapshot segura a de escrita, então grava e trunca o journal sem nenhuma mutação pela metade
+    private final ReentrantReadWriteLock travaSnapshot = new ReentrantReadWriteLock();
+    private final AtomicInteger registrosDesdeSnapshot = new AtomicInteger();
+    private final Logger logger;
+    private EstadoPersistido estadoRecuperado;
+    private boolean dadosRecuperados;
+    private SistemaEducacionalService service;
+    private RepositoriosMemoria repositorios;
+    
+    private PersistenciaSistema(Path diretorio, JournalEscritaAntecipada journal, EstadoPersistido estadoRecuperado,
+                                int intervaloSnapshot, Logger logger) {
+        this.diretorio = diretorio;
+        this.journal = journal;
+        this.estadoRecuperado = estadoRecuperado;
+        this.intervaloSnapshot = intervaloSnapshot;
+        this.logger = logger;
+    }
+    
+    public static PersistenciaSistema abrir(Path diretorio, Logger logger) throws IOException {
+        return abrir(diretorio, Integer.getInteger("educonnect.snapshot.intervalo", INTERVALO_SNAPSHOT_PADRAO), logger);
+    }
+    
+    public static PersistenciaSistema abrir(Path diretorio, int intervaloSnapshot, Logger logger) throws IOException {
+        Files.createDirectories(diretorio);
+        long inicio = System.nanoTime();
+        EstadoPersistido estado = new EstadoPersistido();
+        int doSnapshot = SnapshotBinario.carregar(diretorio, estado);
+        int[] doJournal = new int[1];
+        JournalEscritaAntecipada journal = JournalEscritaAntecipada.abrir(
+            diretorio.resolve(ARQUIVO_JOURNAL), registro -> {
+                estado.aplicar(registro);
+                doJournal[0]++;
+            });
+        if (doSnapshot + doJournal[0] > 0) {
+            logger.info(String.format("Dados abertos em %d ms: %d registros do snapshot, %d do journal",
+                (System.nanoTime() - inicio) / 1_000_000, doSnapshot, doJournal[0]));
+        }
+        PersistenciaSistema persistencia = new PersistenciaSistema(diretorio, journal, estado, intervaloSnapshot, logger);
+        persistencia.registrosDesdeSnapshot.set(doJournal[0]);
+        return persistencia;
+    }
+    
+    // Popula os repositórios (os do serviço) com o estado recuperado e passa a registrar as mutações no journal.
+    // Sob demanda, cada repositório (e cada roster de turma / avaliação de turma) só é lido no primeiro acesso.
+    public void conectar(SistemaEducacionalService service, RepositoriosMemoria repositorios, boolean sobDemanda) {
+        this.service = service;
+        this.repositorios = repositorios;
+        EstadoPersistido estado = estadoRecuperado;
+        CursoRepositoryMemoria cursos = repositorios.cursos;
+        AlunoRepositoryMemoria alunos = repositorios.alunos;
+        UsuarioRepositoryMemoria usuarios = repositorios.usuarios;
+        TurmaRepositoryMemoria turmas = repositorios.turmas;
+        AvaliacaoRepositoryMemoria avaliacoes = repositorios.avaliacoes;
+        ResolvedorReferencias referencias = new ResolvedorReferencias(cursos, alunos, turmas, sobDemanda);
+        dadosRecuperados = estado.possuiRegistros();
+        
+        if (sobDemanda) {
+            definirCargasTardias(estado, referencias);
+        } else if (dadosRecuperados) {
+            carregarEmParalelo(estado, referencias);
+        }
+        // Daqui em diante o estado só é alcançável pelas cargas pendentes
+        estadoRecuperado = null;
+        
+        cursos.adicionarOuvinte(ouvinte(CodecsEntidades.CURSO));
+        alunos.adicionarOuvinte(ouvinte(CodecsEntidades.ALUNO));
+        usuarios.adicionarOuvinte(ouvinte(CodecsEntidades.USUARIO));
+        turmas.adicionarOuvinte(ouvinte(CodecsEntidades.TURMA));
+        avaliacoes.adicionarOuvinte(ouvinte(CodecsEntidades.AVALIACAO_TURMA));
+        cursos.definirExecutorEscritas(this::executar);
+        alunos.definirExecutorEscritas(this::executar);
+        usuarios.definirExecutorEscritas(this::executar);
+        turmas.definirExecutorEscritas(this::executar);
+        avaliacoes.definirExecutorEscritas(this::executar);
+    }
+    
+    private void definirCargasTardias(EstadoPersistido estado, ResolvedorReferencias referencias) {
+        CursoRepositoryMemoria cursos = repositorios.cursos;
+        AlunoRepositoryMemoria alunos = repositorios.alunos;
+        UsuarioRepositoryMemoria usuarios = repositorios.usuarios;
+        TurmaRepositoryMemoria turmas = repositorios.turmas;
+        AvaliacaoRepositoryMemoria avaliacoes = repositorios.avaliacoes;
+        
+        cursos.definirCargaTardia(() -> estado.registros(TipoEntidade.CURSO).values()
+            .forEach(dados -> cursos.restaurar(CodecsEntidades.CURSO.ler(dados.duplicate(), referencias))));
+        alunos.definirCargaTardia(() -> estado.registros(TipoEntidade.ALUNO).values()
+            .forEach(dados -> alunos.restaurar(CodecsEntidades.ALUNO.ler(dados.duplicate(), referencias))));
+        usuarios.definirCargaTardia(() -> estado.registros(TipoEntidade.USUARIO).values()
+            .forEach(dados -> usuarios.restaurar(CodecsEntidades.USUARIO.ler(dados.duplicate(), referencias))));
+        turmas.definirCargaTardia(() -> estado.registros(TipoEntidade.TURMA).values()
+            .forEach(dados -> turmas.restaurar(CodecsEntidades.TURMA.ler(dados.duplicate(), referencias))));
+        avaliacoes.definirCargaTardia(() -> estado.registros(TipoEntidade.AVALIACAO_TURMA).forEach((codigo, dados) ->
+            avaliacoes.restaurarSobDemanda(codigo, CodecsEntidades.contarAvaliacoesAlunos(dados.duplicate()),
+                () -> CodecsEntidades.AVALIACAO_TURMA.ler(dados.duplicate(), referencias))));
+    }
+    
+    // Fase 1: os segmentos são lidos (crc + journal) em paralelo, e as entidades sem referências já decodificadas.
+    // Fase 2: turmas e depois avaliações são decodificadas em paralelo, resolvendo cursos e alunos já restaurados.
+    private void carregarEmParalelo(EstadoPersistido estado, ResolvedorReferencias referencias) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        Map<TipoEntidade, Long> tempos = new ConcurrentHashMap<>();
+        long inicio = System.nanoTime();
+        
+        ForkJoinTask<List<Curso>> cursos = pool.submit(() ->
+            lerSegmento(estado, CodecsEntidades.CURSO, referencias, tempos));
+        ForkJoinTask<List<Aluno>> alunos = pool.submit(() ->
+            lerSegmento(estado, CodecsEntidades.ALUNO, referencias, tempos));
+        ForkJoinTask<List<Usuario>> usuarios = pool.submit(() ->
+            lerSegmento(estado, CodecsEntidades.USUARIO, referencias, tempos));
+        ForkJoinTask<Map<String, ByteBuffer>> turmas = pool.submit(() ->
+            cronometrar(TipoEntidade.TURMA, tempos, () -> estado.registros(TipoEntidade.TURMA)));
+        ForkJoinTask<Map<String, ByteBuffer>> avaliacoes = pool.submit(() ->
+            cronometrar(TipoEntidade.AVALIACAO_TURMA, tempos, () -> estado.registros(TipoEntidade.AVALIACAO_TURMA)));
+        
+        cursos.join().forEach(repositorios.cursos::restaurar);
+        alunos.join().forEach(repositorios.alunos::restaurar);
+        usuarios.join().forEach(repositorios.usuarios::restaurar);
+        long inicioReferencias = System.nanoTime();
+        pool.submit(() -> turmas.join().values().parallelStream()
+                .map(dados -> CodecsEntidades.TURMA.ler(dados.duplicate(), referencias))
+                .collect(Collectors.toList()))
+            .join().forEach(repositorios.turmas::restaurar);
+        pool.submit(() -> avaliacoes.join().values().parallelStream()
+                .map(dados -> CodecsEntidades.AVALIACAO_TURMA.ler(dados.duplicate(), referencias))
+                .collect(Collectors.toList()))
+            .join().forEach(repositorios.avaliacoes::restaurar);
+        long fim = System.nanoTime();
+        
+        for (TipoEntidade tipo : TipoEntidade.values()) {
+            logger.info(String.format("Segmento %s: %d registros lidos em %d ms", tipo,
+                estado.registros(tipo).size(), tempos.get(tipo) / 1_000_000));
+        }
+        logger.info(String.format("Referências resolvidas em %d ms; carga total em %d ms",
+            (fim - inicioReferencias) / 1_000_000, (fim - inicio) / 1_000_000));
+    }
+    
+    private static <T> List<T> lerSegmento(EstadoPersistido estado, CodecEntidade<T> codec,
+                                           ResolvedorReferencias referencias, Map<TipoEntidade, Long> tempos) {
+        return cronometrar(codec.getTipo(), tempos, () -> {
+            List<T> entidades = new ArrayList<>();
+            for (ByteBuffer dados : estado.registros(codec.getTipo()).values()) {
+                entidades.add(codec.ler(dados.duplicate(), referencias));
+            }
+            return entidades;
+        });
+    }
+    
+    private static <R> R cronometrar(TipoEntidade tipo, Map<TipoEntidade, Long> tempos, Supplier<R> tarefa) {
+        long inicio = System.nanoTime();
+        R resultado = tarefa.get();
+        tempos.put(tipo, System.nanoTime() - inicio);
+        return resultado;
+    }
+    
+    public boolean possuiDadosRecuperados() {
+        return dadosRecuperados;
+    }
+    
+    // Grava o estado atual em snapshot e trunca o journal, cujos registros passam a estar no snapshot.
+    // A gravação percorre todos os repositórios, concluindo antes qualquer carga sob demanda pendente.
+    public void criarSnapshot() throws IOException {
+        travaSnapshot.writeLock().lock();
+        try {
+            long inicio = System.nanoTime();
+            int total = SnapshotBinario.gravar(diretorio, service);
+            journal.truncar();
+            registrosDesdeSnapshot.set(0);
+            logger.info(String.format("Snapshot criado com %d registros em %d ms", 
+                total, (System.nanoTime() - inicio) / 1_000_000));
+        } finally {
+            travaSnapshot.writeLock().unlock();
+        }
+    }
+    
+    // Executa uma escrita dos repositórios: registro no journal (pelos ouvintes) e aplicação em memória.
+    // Um snapshot entre as duas etapas gravaria o estado sem a mutação e depois truncaria o journal que a contém.
+    void executar(Runnable mutacao) {
+        // O snapshot acontece antes da mutação atual, fora da trava de leitura (que não pode ser promovida)
+        if (travaSnapshot.getReadHoldCount() == 0 && registrosDesdeSnapshot.get() >= intervaloSnapshot) {
+            try {
+                criarSnapshot();
+            } catch (IOException e) {
+                logger.erro("Falha ao criar snapshot: " + e.getMessage());
+            }
+        }
+        travaSnapshot.readLock().lock();
+        try {
+            mutacao.run();
+        } finally {
+            travaSnapshot.readLock().unlock();
+        }
+    }
+    
+    private void registrar(byte operacao, TipoEntidade tipo, String chave, byte[] dados) {
+        journal.registrar(operacao, tipo, chave, dados);
+        registrosDesdeSnapshot.incrementAndGet();
+    }
+    
+    private <T> OuvinteRepositorio<T> ouvinte(CodecEntidade<T> codec) {
+        return new OuvinteRepositorio<>() {
+            @Override
+            public void aoSalvar(T entidade) {
+                registrar(JournalEscritaAntecipada.OPERACAO_SALVAR, codec.getTipo(),
+                    codec.chave(entidade), codec.codificar(entidade));
+            }
+            
+            @Override
+            public void aoRemover(T entidade) {
+                registrar(JournalEscritaAntecipada.OPERACAO_REMOVER, codec.getTipo(),
+                    codec.chave(entidade), new byte[0]);
+            }
+        };
+    }
+    
+    // Fecha com um snapshot final para que a próxima abertura não precise reaplicar o journal
+    @Override
+    public void close() throws IOException {
+        try {
+            if (service != null && registrosDesdeSnapshot.get() > 0) {
+                criarSnapshot();
+            }
+        } finally {
+            journal.close();
+        }
+    }
+}
+
+// ==================== PERSISTÊNCIA (JDBC) ====================
+// Operação executada com uma conexão emprestada do pool
+@FunctionalInterface
+interface OperacaoSql<R> {
+    R executar(Connection conexao) throws SQLException;
+}
+
+// Pool pequeno de conexões JDBC, todas abertas na criação e reutilizadas entre as operações
+final class PoolConexoes implements Closeable {
+    private static final long ESPERA_MAXIMA_SEGUNDOS = 30;
+    
+    private final String url;
+    private final String usuario;
+    private final String senha;
+    private final BlockingQueue<Connection> livres;
+    private final List<Connection> abertas = new CopyOnWriteArrayList<>();
+    
+    PoolConexoes(String url, String usuario, String senha, int tamanho) throws SQLException {
+        this.url = url;
+        this.usuario = usuario;
+        this.senha = senha;
+        this.livres = new ArrayBlockingQueue<>(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            livres.add(abrirConexao());
+        }
+    }
+    
+    private Connection abrirConexao() throws SQLException {
+        Connection conexao = DriverManager.getConnection(url, usuario, senha);
+        abertas.add(conexao);
+        return conexao;
+    }
+    
+    public <R> R executar(OperacaoSql<R> operacao) {
+        Connection conexao = emprestar();
+        try {
+            return operacao.executar(conexao);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Falha no banco de dados: " + e.getMessage(), e);
+        } finally {
+            devolver(conexao);
+        }
+    }
+    
+    // Executa a operação numa única transação (usado pelas escritas em lote)
+    public <R> R emTransacao(OperacaoSql<R> operacao) {
+        return executar(conexao -> {
+            conexao.setAutoCommit(false);
+            try {
+                R resultado = operacao.executar(conexao);
+                conexao.commit();
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                conexao.rollback();
+                throw e;
+            } finally {
+                conexao.setAutoCommit(true);
+            }
+        });
+    }
+    
+    private Connection emprestar() {
+        try {
+            Connection conexao = livres.poll(ESPERA_MAXIMA_SEGUNDOS, TimeUnit.SECONDS);
+            if (conexao == null) {
+                throw new IllegalStateException("Nenhuma conexão livre no pool após " + ESPERA_MAXIMA_SEGUNDOS + "s");
+            }
+            return conexao;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando conexão do pool", e);
+        }
+    }
+    
+    // Conexões perdidas são substituídas; se não for possível reabrir, o pool fica menor
+    private void devolver(Connection conexao) {
+        try {
+            if (conexao.isClosed()) {
+                abertas.remove(conexao);
+                conexao = abrirConexao();
+            }
+            livres.add(conexao);
+        } catch (SQLException e) {
+            abertas.remove(conexao);
+        }
+    }
+    
+    @Override
+    public void close() {
+        for (Connection conexao : abertas) {
+            try {
+                conexao.close();
+            } catch (SQLException e) {
+                // Fechamento: a conexão já está inutilizável de qualquer forma
+            }
+        }
+        abertas.clear();
+        livres.clear();
+    }
+}
+
+// Tabela de um tipo de entidade: chave lógica única, colunas indexadas para as buscas e os dados
+// serializados pelo codec. A coluna seq guarda a ordem de inserção (atualizações mantêm a posição).
+// Os bytes são lidos com a conexão emprestada e decodificados depois de devolvê-la, pois a leitura
+// pode consultar outras tabelas (turma -> curso/alunos).
+final class TabelaJdbc<T> {
+    // Chave e colunas auxiliares são VARCHAR(255)
+    static final int TAMANHO_MAXIMO_CHAVE = 255;
+    private static final int TAMANHO_LOTE = 500;
+    private static final int TAMANHO_LEITURA = 500;
+    
+    private final PoolConexoes pool;
+    private final String nome;
+    private final CodecEntidade<T> codec;
+    private final Function<ByteBuffer, T> leitor;
+    private final Map<String, Coluna<T>> colunas = new LinkedHashMap<>();
+    private volatile FiltroExistencia filtro;
+    private volatile CacheEntidades<T> cache;
+    
+    TabelaJdbc(PoolConexoes pool, String nome, CodecEntidade<T> codec, Function<ByteBuffer, T> leitor) {
+        this.pool = pool;
+        this.nome = nome;
+        this.codec = codec;
+        this.leitor = leitor;
+    }
+    
+    // Coluna auxiliar, sempre indexada
+    TabelaJdbc<T> coluna(String nomeColuna, String tipoSql, Function<T, Object> extrator) {
+        colunas.put(nomeColuna, new Coluna<>(tipoSql, extrator, false, false, false));
+        return this;
+    }
+    
+    // Coluna que responde a um índice dos repositórios: mesmo nome, mesma normalização de caixa e, se única,
+    // as buscas por ela entregam uma só entidade (a unicidade é garantida pelo repositório, não pelo banco)
+    TabelaJdbc<T> colunaBusca(String nomeColuna, Function<T, String> extrator, boolean ignoraCaixa, boolean unica) {
+        colunas.put(nomeColuna, new Coluna<>("VARCHAR(" + TAMANHO_MAXIMO_CHAVE + ")",
+            entidade -> IndexedRepositorio.normalizar(extrator.apply(entidade), ignoraCaixa), true, ignoraCaixa, unica));
+        return this;
+    }
+    
+    // Valor como a coluna de busca o guarda; lança IllegalArgumentException se ela não for de busca
+    String valorDeBusca(String nomeColuna, String valor) {
+        return IndexedRepositorio.normalizar(valor, colunaDeBusca(nomeColuna).ignoraCaixa);
+    }
+    
+    boolean colunaUnica(String nomeColuna) {
+        return colunaDeBusca(nomeColuna).unica;
+    }
+    
+    private Coluna<T> colunaDeBusca(String nomeColuna) {
+        Coluna<T> coluna = colunas.get(nomeColuna);
+        if (coluna == null || !coluna.busca) {
+            throw new IllegalArgumentException("Índice não declarado: " + nomeColuna);
+        }
+        return coluna;
+    }
+    
+    String chaveDe(T entidade) {
+        return codec.chave(entidade);
+    }
+    
+    // Filtro de Bloom sobre a chave, carregado com as chaves já gravadas (exige o esquema criado)
+    void habilitarFiltroBloom(double taxaFalsoPositivo) {
+        filtro = new FiltroExistencia(taxaFalsoPositivo, this::contar, this::percorrerChaves);
+    }
+    
+    FiltroExistencia getFiltro() {
+        return filtro;
+    }
+    
+    // Entidades lidas pela chave ficam no cache; gravações o atualizam e remoções o invalidam
+    CacheEntidades<T> habilitarCache(long limiteBytes) {
+        cache = new CacheEntidades<>(nome, limiteBytes);
+        return cache;
+    }
+    
+    void criarEsquema() {
+        pool.executar(conexao -> {
+            try (Statement comando = conexao.createStatement()) {
+                StringBuilder ddl = new StringBuilder("CREATE TABLE IF NOT EXISTS ").append(nome)
+                    .append(" (seq BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, chave VARCHAR(")
+                    .append(TAMANHO_MAXIMO_CHAVE).append(") NOT NULL");
+                colunas.forEach((coluna, definicao) -> ddl.append(", ").append(coluna).append(' ').append(definicao.tipoSql));
+                ddl.append(", dados BLOB NOT NULL)");
+                comando.execute(ddl.toString());
+                comando.execute(String.format("CREATE UNIQUE INDEX IF NOT EXISTS %s_chave ON %s (chave)", nome, nome));
+                for (String coluna : colunas.keySet()) {
+                    comando.execute(String.format("CREATE INDEX IF NOT EXISTS %s_%s ON %s (%s)", nome, coluna, nome, coluna));
+                }
+            }
+            return null;
+        });
+    }
+    
+    // Insere ou atualiza pela chave, em lotes de TAMANHO_LOTE comandos numa única transação
+    void salvarTodos(Collection<? extends T> entidades) {
+        if (entidades.isEmpty()) return;
+        StringBuilder sql = new StringBuilder("MERGE INTO ").append(nome).append(" (chave");
+        colunas.keySet().forEach(coluna -> sql.append(", ").append(coluna));
+        sql.append(", dados) KEY (chave) VALUES (?");
+        colunas.keySet().forEach(coluna -> sql.append(", ?"));
+        sql.append(", ?)");
+        
+        // Chaves entram no filtro antes da gravação: um leitor concorrente nunca vê uma linha já confirmada
+        // com o filtro ainda dizendo que ela não existe (se a gravação falhar, sobra só um falso positivo)
+        FiltroExistencia filtroAtual = filtro;
+        if (filtroAtual != null) {
+            for (T entidade : entidades) {
+                filtroAtual.registrar(codec.chave(entidade));
+            }
+        }
+        int[] tamanhos = new int[entidades.size()];
+        try {
+            pool.emTransacao(conexao -> {
+                try (PreparedStatement comando = conexao.prepareStatement(sql.toString())) {
+                    int pendentes = 0;
+                    int indice = 0;
+                    for (T entidade : entidades) {
+                        int parametro = 1;
+                        comando.setString(parametro++, codec.chave(entidade));
+                        for (Coluna<T> coluna : colunas.values()) {
+                            comando.setObject(parametro++, coluna.extrator.apply(entidade));
+                        }
+                        byte[] dados = codec.codificar(entidade);
+                        tamanhos[indice++] = dados.length;
+                        comando.setBytes(parametro, dados);
+                        comando.addBatch();
+                        if (++pendentes == TAMANHO_LOTE) {
+                            comando.executeBatch();
+                            pendentes = 0;
+                        }
+                    }
+                    if (pendentes > 0) {
+                        comando.executeBatch();
+                    }
+                }
+                return null;
+            });
+        } finally {
+            if (filtroAtual != null) {
+                for (T entidade : entidades) {
+                    filtroAtual.concluir(codec.chave(entidade));
+                }
+            }
+        }
+        CacheEntidades<T> cacheAtual = cache;
+        if (cacheAtual == null) return;
+        int indice = 0;
+        for (T entidade : entidades) {
+            cacheAtual.guardar(codec.chave(entidade), entidade, tamanhos[indice++]);
+        }
+    }
+    
+    // Insere só se a chave estiver livre; a unicidade vem do índice único sobre a chave, então duas
+    // inserções concorrentes não se sobrepõem. Devolve false, sem alterar a linha, se a chave já existir
+    // com outros dados (gravar de novo os mesmos dados não é conflito).
+    boolean inserirSeAusente(T entidade) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(nome).append(" (chave");
+        colunas.keySet().forEach(coluna -> sql.append(", ").append(coluna));
+        sql.append(", dados) VALUES (?");
+        colunas.keySet().forEach(coluna -> sql.append(", ?"));
+        sql.append(", ?)");
+        
+        String chave = codec.chave(entidade);
+        byte[] dados = codec.codificar(entidade);
+        FiltroExistencia filtroAtual = filtro;
+        if (filtroAtual != null) {
+            filtroAtual.registrar(chave);
+        }
+        boolean inserida;
+        try {
+            inserida = pool.executar(conexao -> {
+                try (PreparedStatement comando = conexao.prepareStatement(sql.toString())) {
+                    int parametro = 1;
+                    comando.setString(parametro++, chave);
+                    for (Coluna<T> coluna : colunas.values()) {
+                        comando.setObject(parametro++, coluna.extrator.apply(entidade));
+                    }
+                    comando.setBytes(parametro, dados);
+                    comando.executeUpdate();
+                    return true;
+                } catch (SQLException e) {
+                    // Classe 23: violação de restrição de integridade (aqui, a chave já gravada)
+                    if (e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+                        return false;
+                    }
+                    throw e;
+                }
+            });
+        } finally {
+            if (filtroAtual != null) {
+                filtroAtual.concluir(chave);
+            }
+        }
+        if (!inserida) {
+            List<byte[]> gravados = consultar("SELECT dados FROM " + nome + " WHERE chave = ? ORDER BY seq "
+                + "FETCH FIRST 1 ROWS ONLY", chave);
+            return !gravados.isEmpty() && Arrays.equals(gravados.get(0), dados);
+        }
+        CacheEntidades<T> cacheAtual = cache;
+        if (cacheAtual != null) {
+            cacheAtual.guardar(chave, entidade, dados.length);
+        }
+        return true;
+    }
+    
+    void remover(String chave) {
+        pool.executar(conexao -> {
+            try (PreparedStatement comando = conexao.prepareStatement("DELETE FROM " + nome + " WHERE chave = ?")) {
+                comando.setString(1, chave);
+                return comando.executeUpdate();
+            }
+        });
+        CacheEntidades<T> cacheAtual = cache;
+        if (cacheAtual != null) {
+            cacheAtual.invalidar(chave);
+        }
+    }
+    
+    T buscar(String chave) {
+        if (!podeExistir(chave)) return null;
+        CacheEntidades<T> cacheAtual = cache;
+        if (cacheAtual == null) {
+            return buscarPrimeiro("chave", chave);
+        }
+        T emCache = cacheAtual.obter(chave);
+        if (emCache != null) return emCache;
+        long geracao = cacheAtual.getGeracao();
+        List<byte[]> dados = consultar("SELECT dados FROM " + nome + " WHERE chave = ? ORDER BY seq "
+            + "FETCH FIRST 1 ROWS ONLY", chave);
+        if (dados.isEmpty()) return null;
+        T entidade = ler(dados.get(0));
+        cacheAtual.guardarLido(chave, entidade, dados.get(0).length, geracao);
+        return entidade;
+    }
+    
+    boolean existe(String chave) {
+        return podeExistir(chave) && existePor("chave", chave);
+    }
+    
+    private boolean podeExistir(String chave) {
+        FiltroExistencia filtroAtual = filtro;
+        return filtroAtual == null || filtroAtual.podeExistir(chave);
+    }
+    
+    T buscarPrimeiro(String coluna, Object valor) {
+        List<byte[]> dados = consultar("SELECT dados FROM " + nome + " WHERE " + coluna + " = ? ORDER BY seq "
+            + "FETCH FIRST 1 ROWS ONLY", valor);
+        return dados.isEmpty() ? null : ler(dados.get(0));
+    }
+    
+    List<T> buscarPor(String coluna, Object valor) {
+        return lerTodos(consultar("SELECT dados FROM " + nome + " WHERE " + coluna + " = ? ORDER BY seq", valor));
+    }
+    
+    boolean existePor(String coluna, Object valor) {
+        return pool.executar(conexao -> {
+            try (PreparedStatement comando = conexao.prepareStatement(
+                    "SELECT 1 FROM " + nome + " WHERE " + coluna + " = ? FETCH FIRST 1 ROWS ONLY")) {
+                comando.setObject(1, valor);
+                try (ResultSet resultado = comando.executeQuery()) {
+                    return resultado.next();
+                }
+            }
+        });
+    }
+    
+    // Limitado a Integer.MAX_VALUE, o maior total que Repositorio.count() representa
+    int contar() {
+        return (int) Math.min(agregar("SELECT COUNT(*) FROM " + nome), Integer.MAX_VALUE);
+    }
+    
+    long somar(String coluna) {
+        return agregar("SELECT COALESCE(SUM(" + coluna + "), 0) FROM " + nome);
+    }
+    
+    // O cursor guarda o seq do último item entregue, no mesmo formato dos repositórios em memória
+    Pagina<T> listarPagina(String cursor, int tamanho) {
+        Pagina.validarTamanho(tamanho);
+        long inicio = Pagina.decodificarCursor(cursor);
+        List<Long> sequencias = new ArrayList<>(tamanho + 1);
+        List<byte[]> dados = pool.executar(conexao -> {
+            try (PreparedStatement comando = conexao.prepareStatement(
+                    "SELECT seq, dados FROM " + nome + " WHERE seq > ? ORDER BY seq FETCH FIRST ? ROWS ONLY")) {
+                comando.setLong(1, inicio);
+                // Um item a mais indica se há próxima página
+                comando.setInt(2, tamanho + 1);
+                List<byte[]> lidos = new ArrayList<>(tamanho + 1);
+                try (ResultSet resultado = comando.executeQuery()) {
+                    while (resultado.next()) {
+                        sequencias.add(resultado.getLong(1));
+                        lidos.add(resultado.getBytes(2));
+                    }
+                }
+                return lidos;
+            }
+        });
+        boolean haMais = dados.size() > tamanho;
+        List<T> itens = lerTodos(haMais ? dados.subList(0, tamanho) : dados);
+        return new Pagina<>(itens, haMais ? Pagina.codificarCursor(sequencias.get(tamanho - 1)) : null);
+    }
+    
+    // Percorre a tabela em páginas, sem carregá-la inteira na memória
+    Stream<T> stream() {
+        return Pagina.emSequencia(cursor -> listarPagina(cursor, TAMANHO_LEITURA));
+    }
+
+    // Entrega só as chaves, sem ler os dados; o consumidor não pode usar o pool
+    void percorrerChaves(Consumer<String> consumidor) {
+        pool.executar(conexao -> {
+            try (Statement comando = conexao.createStatement()) {
+                comando.setFetchSize(TAMANHO_LEITURA);
+                try (ResultSet resultado = comando.executeQuery("SELECT chave FROM " + nome)) {
+                    while (resultado.next()) {
+                        consumidor.accept(resultado.getString(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+    
+    private List<byte[]> consultar(String sql, Object valor) {
+        return pool.executar(conexao -> {
+            try (PreparedStatement comando = conexao.prepareStatement(sql)) {
+                comando.setObject(1, valor);
+                List<byte[]> lidos = new ArrayList<>();
+                try (ResultSet resultado = comando.executeQuery()) {
+                    while (resultado.next()) {
+                        lidos.add(resultado.getBytes(1));
+                    }
+                }
+                return lidos;
+            }
+        });
+    }
+    
+    private long agregar(String sql) {
+        return pool.executar(conexao -> {
+            try (Statement comando = conexao.createStatement();
+                 ResultSet resultado = comando.executeQuery(sql)) {
+                resultado.next();
+                return resultado.getLong(1);
+            }
+        });
+    }
+    
+    private T ler(byte[] dados) {
+        return leitor.apply(ByteBuffer.wrap(dados));
+    }
+    
+    private List<T> lerTodos(List<byte[]> dados) {
+        List<T> entidades = new ArrayList<>(dados.size());
+        for (byte[] bytes : dados) {
+            entidades.add(ler(bytes));
+        }
+        return entidades;
+    }
+    
+    private static final class Coluna<T> {
+        final String tipoSql;
+        final Function<T, Object> extrator;
+        final boolean busca;
+        final boolean ignoraCaixa;
+        final boolean unica;
+        
+        Coluna(String tipoSql, Function<T, Object> extrator, boolean busca, boolean ignoraCaixa, boolean unica) {
+            this.tipoSql = tipoSql;
+            this.extrator = extrator;
+            this.busca = busca;
+            this.ignoraCaixa = ignoraCaixa;
+            this.unica = unica;
+        }
+    }
+}
+
+// Repositórios com os dados no banco: mesmos contratos dos repositórios em memória, sem manter as
+// entidades no heap (exceto as do cache, quando habilitado). Leituras fora do cache devolvem uma nova
+// instância, então alterações precisam ser salvas de novo (o serviço já salva após cada mutação);
+// salvar com uma chave existente atualiza o registro.
+// A chave da tabela faz o papel do id, e as colunas de busca, o dos índices (mesmos nomes e normalização).
+abstract class RepositorioJdbc<T> implements RepositorioIndexado<T> {
+    protected final TabelaJdbc<T> tabela;
+    private final boolean idIgnoraCaixa;
+    protected final Logger logger;
+    
+    protected RepositorioJdbc(Logger logger, TabelaJdbc<T> tabela, boolean idIgnoraCaixa) {
+        this.logger = logger;
+        this.tabela = tabela;
+        this.idIgnoraCaixa = idIgnoraCaixa;
+    }
+    
+    protected abstract String mensagemSalvo(T entidade);
+    protected abstract String mensagemRemovido(T entidade);
+    
+    @Override
+    public void salvar(T entidade) {
+        tabela.salvarTodos(List.of(entidade));
+        logger.debug(mensagemSalvo(entidade));
+    }
+    
+    @Override
+    public void salvarTodos(Collection<? extends T> entidades) {
+        tabela.salvarTodos(entidades);
+    }
+    
+    @Override
+    public void remover(T entidade) {
+        tabela.remover(tabela.chaveDe(entidade));
+        logger.debug(mensagemRemovido(entidade));
+    }
+    
+    @Override public List<T> listarTodos() { return tabela.stream().collect(Collectors.toList()); }
+    @Override public int count() { return tabela.contar(); }
+    @Override public void forEach(Consumer<? super T> acao) { tabela.stream().forEach(acao); }
+    @Override public Stream<T> stream() { return tabela.stream(); }
+    @Override public Pagina<T> listarPagina(String cursor, int tamanho) { return tabela.listarPagina(cursor, tamanho); }
+    
+    @Override
+    public T buscarPorId(String id) {
+        return id == null ? null : tabela.buscar(IndexedRepositorio.normalizar(id, idIgnoraCaixa));
+    }
+    
+    @Override
+    public boolean existe(String id) {
+        return id != null && tabela.existe(IndexedRepositorio.normalizar(id, idIgnoraCaixa));
+    }
+    
+    @Override
+    public List<T> buscarPorIndice(String nomeIndice, String chave) {
+        String valor = tabela.valorDeBusca(nomeIndice, chave);
+        return valor == null ? new ArrayList<>() : tabela.buscarPor(nomeIndice, valor);
+    }
+    
+    @Override
+    public T buscarUnicoPorIndice(String nomeIndice, String chave) {
+        if (!tabela.colunaUnica(nomeIndice)) {
+            throw new IllegalStateException("Índice não é único");
+        }
+        String valor = tabela.valorDeBusca(nomeIndice, chave);
+        return valor == null ? null : tabela.buscarPrimeiro(nomeIndice, valor);
+    }
+    
+    @Override
+    public boolean existePorIndice(String nomeIndice, String chave) {
+        String valor = tabela.valorDeBusca(nomeIndice, chave);
+        return valor != null && tabela.existePor(nomeIndice, valor);
+    }
+}
+
+class AlunoRepositoryJdbc extends RepositorioJdbc<Aluno> implements AlunoRepository {
+    AlunoRepositoryJdbc(Logger logger, TabelaJdbc<Aluno> tabela) {
+        super(logger, tabela, false);
+    }
+    
+    @Override
+    protected String mensagemSalvo(Aluno aluno) {
+        return String.format("Aluno %s salvo no repositório", aluno.getNome());
+    }
+    
+    @Override
+    protected String mensagemRemovido(Aluno aluno) {
+        return String.format("Aluno %s removido do repositório", aluno.getNome());
+    }
+    
+    // Matrícula e curso ficam em colunas VARCHAR(255)
+    @Override
+    public String verificarLimitesChaves(String matricula, String curso) {
+        if (matricula.length() > TabelaJdbc.TAMANHO_MAXIMO_CHAVE) {
+            return String.format("Matrícula excede %d caracteres", TabelaJdbc.TAMANHO_MAXIMO_CHAVE);
+        }
+        if (curso.length() > TabelaJdbc.TAMANHO_MAXIMO_CHAVE) {
+            return String.format("Curso excede %d caracteres", TabelaJdbc.TAMANHO_MAXIMO_CHAVE);
+        }
+        return null;
+    }
+}
+
+class CursoRepositoryJdbc extends RepositorioJdbc<Curso> implements CursoRepository {
+    CursoRepositoryJdbc(Logger logger, TabelaJdbc<Curso> tabela) {
+        super(logger, tabela, true);
+    }
+    
+    @Override
+    protected String mensagemSalvo(Curso curso) {
+        return String.format("Curso %s salvo no repositório", curso.getNome());
+    }
+    
+    @Override
+    protected String mensagemRemovido(Curso curso) {
+        return String.format("Curso %s removido do repositório", curso.getNome());
+    }
+    
+    // O nome é único, como no repositório em memória
+    @Override
+    public void salvar(Curso curso) {
+        Curso mesmoNome = buscarPorNome(curso.getNome());
+        if (mesmoNome != null && !tabela.chaveDe(mesmoNome).equals(tabela.chaveDe(curso))) {
+            throw new IllegalStateException(String.format("Índice único '%s' já contém a chave '%s'",
+                INDICE_NOME, tabela.valorDeBusca(INDICE_NOME, curso.getNome())));
+        }
+        super.salvar(curso);
+    }
+}
+
+class TurmaRepositoryJdbc extends RepositorioJdbc<Turma> implements TurmaRepository {
+    TurmaRepositoryJdbc(Logger logger, TabelaJdbc<Turma> tabela) {
+        super(logger, tabela, false);
+    }
+    
+    @Override
+    protected String mensagemSalvo(Turma turma) {
+        return String.format("Turma %s salva no repositório", turma.getCodigo());
+    }
+    
+    @Override
+    protected String mensagemRemovido(Turma turma) {
+        return String.format("Turma %s removida do repositório", turma.getCodigo());
+    }
+}
+
+class UsuarioRepositoryJdbc extends RepositorioJdbc<Usuario> implements UsuarioRepository {
+    UsuarioRepositoryJdbc(Logger logger, TabelaJdbc<Usuario> tabela) {
+        super(logger, tabela, false);
+    }
+    
+    @Override
+    protected String mensagemSalvo(Usuario usuario) {
+        return String.format("Usuário %s salvo no repositório", usuario.getNome());
+    }
+    
+    @Override
+    protected String mensagemRemovido(Usuario usuario) {
+        return String.format("Usuário %s removido do repositório", usuario.getNome());
+    }
+    
+    // Como no repositório em memória, um e-mail já cadastrado não é sobrescrito por outro usuário
+    @Override
+    public void salvar(Usuario usuario) {
+        if (!tabela.inserirSeAusente(usuario)) {
+            throw new IllegalStateException(String.format("Já existe um usuário com o email %s", usuario.getEmail()));
+        }
+        logger.debug(mensagemSalvo(usuario));
+    }
+    
+    @Override
+    public void salvarTodos(Collection<? extends Usuario> usuarios) {
+        usuarios.forEach(this::salvar);
+    }
+    
+    @Override
+    public Usuario autenticar(Credenciais credenciais) {
+        return UsuarioRepository.autenticarPorLogin(this, credenciais, logger);
+    }
+}
+
+class AvaliacaoRepositoryJdbc implements AvaliacaoRepository {
+    private final TabelaJdbc<AvaliacaoTurma> tabela;
+    private final Logger logger;
+    
+    AvaliacaoRepositoryJdbc(Logger logger, TabelaJdbc<AvaliacaoTurma> tabela) {
+        this.logger = logger;
+        this.tabela = tabela;
+    }
+    
+    @Override
+    public void salvarAvaliacaoTurma(AvaliacaoTurma avaliacaoTurma) {
+        tabela.salvarTodos(List.of(avaliacaoTurma));
+        logger.debug(String.format("Avaliações da turma %s salvas", avaliacaoTurma.getTurma().getCodigo()));
+    }
+    
+    @Override
+    public AvaliacaoTurma buscarAvaliacaoTurma(String codigoTurma) {
+        return codigoTurma == null ? null : tabela.buscar(codigoTurma);
+    }
+    
+    @Override
+    public List<AvaliacaoTurma> listarAvaliacoesTurma() {
+        return tabela.stream().collect(Collectors.toList());
+    }
+    
+    // Limitado a Integer.MAX_VALUE, como TabelaJdbc.contar()
+    @Override
+    public int getTotalAvaliacoes() {
+        return (int) Math.min(tabela.somar("quantidade"), Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public boolean existeAvaliacaoTurma(String codigoTurma) {
+        return codigoTurma != null && tabela.existe(codigoTurma);
+    }
+}
+
+// Cria o esquema e os repositórios JDBC sobre um banco (ex.: H2 em arquivo, "jdbc:h2:./dados/educonnect").
+// O driver é carregado do classpath pelo DriverManager.
+class ArmazenamentoJdbc implements Closeable {
+    static final int TAMANHO_POOL_PADRAO = 4;
+    
+    private final PoolConexoes pool;
+    private final CursoRepositoryJdbc cursoRepository;
+    private final AlunoRepositoryJdbc alunoRepository;
+    private final UsuarioRepositoryJdbc usuarioRepository;
+    private final TurmaRepositoryJdbc turmaRepository;
+    private final AvaliacaoRepositoryJdbc avaliacaoRepository;
+    private final ResolvedorReferencias referencias;
+    private final TabelaJdbc<Aluno> alunos;
+    private final TabelaJdbc<Turma> turmas;
+    private final TabelaJdbc<AvaliacaoTurma> avaliacoes;
+    private volatile List<CacheEntidades<?>> caches = List.of();
+    
+    private ArmazenamentoJdbc(PoolConexoes pool, double taxaFalsoPositivo, Logger logger) {
+        this.pool = pool;
+        TabelaJdbc<Curso> cursos = new TabelaJdbc<>(pool, "cursos", CodecsEntidades.CURSO,
+                dados -> ler(CodecsEntidades.CURSO, dados))
+            .colunaBusca(CursoRepository.INDICE_NOME, Curso::getNome, true, true);
+        this.alunos = new TabelaJdbc<>(pool, "alunos", CodecsEntidades.ALUNO,
+                dados -> ler(CodecsEntidades.ALUNO, dados))
+            .colunaBusca(AlunoRepository.INDICE_CURSO, Aluno::getCurso, true, false);
+        TabelaJdbc<Usuario> usuarios = new TabelaJdbc<>(pool, "usuarios", CodecsEntidades.USUARIO,
+                dados -> ler(CodecsEntidades.USUARIO, dados))
+            .colunaBusca(UsuarioRepository.INDICE_LOGIN,
+                u -> u instanceof Autenticavel ? ((Autenticavel) u).getLogin() : null, false, false);
+        this.turmas = new TabelaJdbc<>(pool, "turmas", CodecsEntidades.TURMA,
+                dados -> ler(CodecsEntidades.TURMA, dados))
+            .colunaBusca(TurmaRepository.INDICE_CURSO, t -> t.getCurso().getCodigo(), true, false)
+            .colunaBusca(TurmaRepository.INDICE_PROFESSOR, t -> t.getProfessor().getRegistro(), false, false);
+        this.avaliacoes = new TabelaJdbc<>(pool, "avaliacoes_turma",
+                CodecsEntidades.AVALIACAO_TURMA, dados -> ler(CodecsEntidades.AVALIACAO_TURMA, dados))
+            .coluna("quantidade", "INT", AvaliacaoTurma::getQuantidadeAvaliacoesAlunos);
+        for (TabelaJdbc<?> tabela : List.of(cursos, alunos, usuarios, turmas, avaliacoes)) {
+            tabela.criarEsquema();
+        }
+        // Existência de matrícula, código de curso/turma e e-mail: cadastros novos não vão ao banco
+        for (TabelaJdbc<?> tabela : List.of(cursos, alunos, usuarios, turmas)) {
+            tabela.habilitarFiltroBloom(taxaFalsoPositivo);
+        }
+
+        this.cursoRepository = new CursoRepositoryJdbc(logger, cursos);
+        this.alunoRepository = new AlunoRepositoryJdbc(logger, alunos);
+        this.usuarioRepository = new UsuarioRepositoryJdbc(logger, usuarios);
+        this.turmaRepository = new TurmaRepositoryJdbc(logger, turmas);
+        this.avaliacaoRepository = new AvaliacaoRepositoryJdbc(logger, avaliacoes);
+        // Rosters resolvidos sob demanda: ler uma turma não consulta todos os seus alunos
+        this.referencias = new ResolvedorReferencias(cursoRepository, alunoRepository, turmaRepository, true);
+    }
+    
+    public static ArmazenamentoJdbc abrir(String url, String usuario, String senha, int tamanhoPool,
+                                          double taxaFalsoPositivo, Logger logger) throws SQLException {
+        PoolConexoes pool = new PoolConexoes(url, usuario, senha, tamanhoPool);
+        try {
+            return new ArmazenamentoJdbc(pool, taxaFalsoPositivo, logger);
+        } catch (RuntimeException e) {
+            pool.close();
+            throw e;
+        }
+    }
+    
+    private <T> T ler(CodecEntidade<T> codec, ByteBuffer dados) {
+        return codec.ler(dados, referencias);
+    }
+    
+    public boolean possuiDados() {
+        return cursoRepository.count() > 0 || alunoRepository.count() > 0 || usuarioRepository.count() > 0;
+    }
+    
+    // Cache de alunos, turmas e avaliações por turma, com o limite de bytes dividido entre eles
+    public List<CacheEntidades<?>> habilitarCache(long limiteBytes) {
+        long porTabela = Math.max(1, limiteBytes / 3);
+        caches = List.of(alunos.habilitarCache(porTabela), turmas.habilitarCache(porTabela),
+            avaliacoes.habilitarCache(porTabela));
+        return caches;
+    }
+    
+    public List<CacheEntidades<?>> getCaches() { return caches; }
+    public CursoRepositoryJdbc getCursoRepository() { return cursoRepository; }
+    public AlunoRepositoryJdbc getAlunoRepository() { return alunoRepository; }
+    public UsuarioRepositoryJdbc getUsuarioRepository() { return usuarioRepository; }
+    public TurmaRepositoryJdbc getTurmaRepository() { return turmaRepository; }
+    public AvaliacaoRepositoryJdbc getAvaliacaoRepository() { return avaliacaoRepository; }
+    
+    @Override
+    public void close() {
+        pool.close();
+    }
+}
+
+// ==================== ÍNDICE EM DISCO (ÁRVORE B+) ====================
+// Árvore B+ em arquivo (chave texto -> valor long não negativo), com páginas de tamanho fixo e um
+// cache LRU limitado de nós. As folhas são encadeadas para varreduras em ordem de chave.
+// Página 0: [int mágico][int raiz][int total de páginas][long quantidade de chaves]
+// Nó:       [byte folha][short entradas][int próxima folha]
+//           folha: entradas × ([chave][long valor]); interno: [int filho0] + entradas × ([chave][int filho])
+// Cada chave ocupa um slot fixo: 1 byte de tamanho + até TAMANHO_MAXIMO_CHAVE bytes UTF-8.
+// Remoções só retiram a entrada da folha (sem fusão de nós); folhas vazias são puladas nas varreduras.
+// Nós alterados vão ao disco ao sair do cache e em sincronizar()/close().
+final class ArvoreBMais implements Closeable {
+    static final int TAMANHO_PAGINA = 4096;
+    static final int TAMANHO_MAXIMO_CHAVE = 64;
+    // Uma operação toca no máximo altura + 2 nós; o mínimo garante que nenhum deles saia do cache no meio dela
+    static final int MINIMO_PAGINAS_CACHE = 32;
+    private static final int MAGICO = 0x42504C53; // "BPLS"
+    private static final byte GRAVACAO_PENDENTE = 1;
+    private static final int SEM_PAGINA = -1;
+    private static final int CABECALHO_NO = 1 + 2 + 4;
+    private static final int SLOT_CHAVE = 1 + TAMANHO_MAXIMO_CHAVE;
+    private static final int MAXIMO_FOLHA = (TAMANHO_PAGINA - CABECALHO_NO) / (SLOT_CHAVE + 8);
+    private static final int MAXIMO_INTERNO = (TAMANHO_PAGINA - CABECALHO_NO - 4) / (SLOT_CHAVE + 4);
+    
+    private final FileChannel canal;
+    private final Map<Integer, No> cache;
+    private int raiz;
+    private int totalPaginas;
+    private long quantidade;
+    // Há alterações desde a última sincronização; enquanto houver, os metadados em disco as sinalizam
+    private boolean alterada;
+    // O arquivo estava marcado com gravação pendente e foi esvaziado na abertura
+    private boolean descartada;
+    private long acertosCache;
+    private long faltasCache;
+    
+    private ArvoreBMais(FileChannel canal, int paginasEmCache) {
+        this.canal = canal;
+        int capacidade = Math.max(paginasEmCache, MINIMO_PAGINAS_CACHE);
+        this.cache = new LinkedHashMap<>(capacidade * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, No> maisAntigo) {
+                if (size() <= capacidade) return false;
+                gravarSeSujo(maisAntigo.getValue());
+                return true;
+            }
+        };
+    }
+    
+    // Páginas alteradas só vão para o disco ao saírem do cache ou em sincronizar(): uma queda entre
+    // sincronizações deixa o arquivo inconsistente. Os metadados marcam a gravação pendente, e a abertura
+    // de um arquivo marcado devolve a árvore vazia (foiDescartada()) para o dono reconstruí-la a partir
+    // dos dados que ela indexa, em vez de uma árvore corrompida.
+    static ArvoreBMais abrir(Path arquivo, int paginasEmCache) throws IOException {
+        FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ArvoreBMais arvore = new ArvoreBMais(canal, paginasEmCache);
+        if (canal.size() == 0) {
+            arvore.totalPaginas = 1;
+            No raiz = arvore.novoNo(true);
+            arvore.raiz = raiz.pagina;
+            arvore.gravarMetadados();
+        } else {
+            ByteBuffer metadados = arvore.lerPagina(0);
+            if (metadados.getInt() != MAGICO) {
+                canal.close();
+                throw new IOException("Arquivo de índice inválido: " + arquivo);
+            }
+            arvore.raiz = metadados.getInt();
+            arvore.totalPaginas = metadados.getInt();
+            arvore.quantidade = metadados.getLong();
+            if (metadados.get() == GRAVACAO_PENDENTE) {
+                arvore.limpar();
+                arvore.descartada = true;
+            }
+        }
+        return arvore;
+    }
+    
+    // Retorna o valor da chave, ou -1 se ela não existir
+    synchronized long buscar(String chave) {
+        No no = no(raiz);
+        while (!no.folha) {
+            no = no(no.filhos.get(indiceFilho(no, chave)));
+        }
+        int posicao = Collections.binarySearch(no.chaves, chave);
+        return posicao >= 0 ? no.valores.get(posicao) : -1;
+    }
+    
+    // Insere ou substitui o valor da chave
+    synchronized void inserir(String chave, long valor) {
+        validarChave(chave);
+        if (valor < 0) {
+            throw new IllegalArgumentException("Valor deve ser não negativo: " + valor);
+        }
+        marcarAlterada();
+        Divisao divisao = inserir(no(raiz), chave, valor);
+        if (divisao != null) {
+            No novaRaiz = novoNo(false);
+            novaRaiz.chaves.add(divisao.separador);
+            novaRaiz.filhos.add(raiz);
+            novaRaiz.filhos.add(divisao.pagina);
+            raiz = novaRaiz.pagina;
+        }
+    }
+    
+    synchronized boolean remover(String chave) {
+        No no = no(raiz);
+        while (!no.folha) {
+            no = no(no.filhos.get(indiceFilho(no, chave)));
+        }
+        int posicao = Collections.binarySearch(no.chaves, chave);
+        if (posicao < 0) return false;
+        marcarAlterada();
+        no.chaves.remove(posicao);
+        no.valores.remove(posicao);
+        no.sujo = true;
+        quantidade--;
+        return true;
+    }
+    
+    // Visita as entradas em ordem de chave a partir de inicio (null = primeira chave) até o visitante retornar false
+    synchronized void percorrer(String inicio, boolean incluirInicio, BiPredicate<String, Long> visitante) {
+        No no = no(raiz);
+        while (!no.folha) {
+            no = no(inicio == null ? no.filhos.get(0) : no.filhos.get(indiceFilho(no, inicio)));
+        }
+        int posicao = 0;
+        if (inicio != null) {
+            int encontrada = Collections.binarySearch(no.chaves, inicio);
+            posicao = encontrada >= 0 ? (incluirInicio ? encontrada : encontrada + 1) : -encontrada - 1;
+        }
+        while (true) {
+            for (; posicao < no.chaves.size(); posicao++) {
+                if (!visitante.test(no.chaves.get(posicao), no.valores.get(posicao))) {
+                    return;
+                }
+            }
+            if (no.proxima == SEM_PAGINA) return;
+            no = no(no.proxima);
+            posicao = 0;
+        }
+    }
+    
+    // Remove todas as entradas. A marca de gravação pendente fica até a próxima sincronização, então
+    // uma queda antes dela (ex.: no meio de uma reconstrução) descarta o arquivo de novo na abertura.
+    synchronized void limpar() throws IOException {
+        cache.clear();
+        canal.truncate(0);
+        totalPaginas = 1;
+        quantidade = 0;
+        raiz = novoNo(true).pagina;
+        alterada = true;
+        gravarMetadados();
+        canal.force(false);
+    }
+    
+    synchronized boolean foiDescartada() { return descartada; }
+    synchronized long getQuantidade() { return quantidade; }
+    synchronized long getAcertosCache() { return acertosCache; }
+    synchronized long getFaltasCache() { return faltasCache; }
+    
+    // Grava as páginas alteradas e só depois (após o fsync delas) desmarca a gravação pendente
+    synchronized void sincronizar() throws IOException {
+        for (No no : cache.values()) {
+            gravarSeSujo(no);
+        }
+        canal.force(false);
+        alterada = false;
+        gravarMetadados();
+        canal.force(false);
+    }
+    
+    static boolean chaveCabe(String chave) {
+        return chave.getBytes(StandardCharsets.UTF_8).length <= TAMANHO_MAXIMO_CHAVE;
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            sincronizar();
+        } finally {
+            canal.close();
+        }
+    }
+    
+    private Divisao inserir(No no, String chave, long valor) {
+        if (no.folha) {
+            int posicao = Collections.binarySearch(no.chaves, chave);
+            no.sujo = true;
+            if (posicao >= 0) {
+                no.valores.set(posicao, valor);
+                return null;
+            }
+            int insercao = -posicao - 1;
+            no.chaves.add(insercao, chave);
+            no.valores.add(insercao, valor);
+            quantidade++;
+            if (no.chaves.size() <= MAXIMO_FOLHA) return null;
+            
+            // Inserções no fim da última folha (matrículas crescentes) deixam a folha esquerda cheia
+            No direita = novoNo(true);
+            boolean anexando = no.proxima == SEM_PAGINA && insercao == no.chaves.size() - 1;
+            int meio = anexando ? no.chaves.size() - 1 : no.chaves.size() / 2;
+            moverCauda(no.chaves, direita.chaves, meio);
+            moverCauda(no.valores, direita.valores, meio);
+            direita.proxima = no.proxima;
+            no.proxima = direita.pagina;
+            return new Divisao(direita.chaves.get(0), direita.pagina);
+        }
+        
+        int indice = indiceFilho(no, chave);
+        Divisao divisaoFilho = inserir(no(no.filhos.get(indice)), chave, valor);
+        if (divisaoFilho == null) return null;
+        no.sujo = true;
+        no.chaves.add(indice, divisaoFilho.separador);
+        no.filhos.add(indice + 1, divisaoFilho.pagina);
+        if (no.chaves.size() <= MAXIMO_INTERNO) return null;
+        
+        // A chave do meio sobe para o pai; os filhos à direita dela vão para o novo nó
+        No direita = novoNo(false);
+        int meio = no.chaves.size() / 2;
+        String separador = no.chaves.get(meio);
+        moverCauda(no.chaves, direita.chaves, meio + 1);
+        no.chaves.remove(meio);
+        moverCauda(no.filhos, direita.filhos, meio + 1);
+        return new Divisao(separador, direita.pagina);
+    }
+    
+    private static <E> void moverCauda(List<E> origem, List<E> destino, int inicio) {
+        List<E> cauda = origem.subList(inicio, origem.size());
+        destino.addAll(cauda);
+        cauda.clear();
+    }
+    
+    // Filho i cobre as chaves em [chaves[i-1], chaves[i])
+    private static int indiceFilho(No no, String chave) {
+        int posicao = Collections.binarySearch(no.chaves, chave);
+        return posicao >= 0 ? posicao + 1 : -posicao - 1;
+    }
+    
+    // A primeira alteração após uma sincronização marca os metadados em disco antes de tocar as páginas
+    private void marcarAlterada() {
+        if (alterada) return;
+        alterada = true;
+        try {
+            gravarMetadados();
+            canal.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao marcar gravação pendente no índice", e);
+        }
+    }
+    
+    private static void validarChave(String chave) {
+        if (!chaveCabe(chave)) {
+            throw new IllegalArgumentException(String.format(
+                "Chave excede %d bytes: %s", TAMANHO_MAXIMO_CHAVE, chave));
+        }
+    }
+    
+    private No novoNo(boolean folha) {
+        No no = new No(totalPaginas++, folha);
+        no.sujo = true;
+        cache.put(no.pagina, no);
+        return no;
+    }
+    
+    private No no(int pagina) {
+        No no = cache.get(pagina);
+        if (no != null) {
+            acertosCache++;
+            return no;
+        }
+        faltasCache++;
+        try {
+            no = decodificar(pagina, lerPagina(pagina));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao ler página " + pagina + " do índice", e);
+        }
+        cache.put(pagina, no);
+        return no;
+    }
+    
+    private ByteBuffer lerPagina(int pagina) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_PAGINA);
+        long posicao = (long) pagina * TAMANHO_PAGINA;
+        while (buffer.hasRemaining() && canal.read(buffer, posicao + buffer.position()) >= 0) {
+            // Lê até completar a página ou alcançar o fim do arquivo
+        }
+        buffer.flip();
+        return buffer;
+    }
+    
+    private void gravarSeSujo(No no) {
+        if (!no.sujo) return;
+        try {
+            escreverPagina(no.pagina, codificar(no));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar página " + no.pagina + " do índice", e);
+        }
+        no.sujo = false;
+    }
+    
+    private void gravarMetadados() throws IOException {
+        ByteBuffer metadados = ByteBuffer.allocate(TAMANHO_PAGINA);
+        metadados.putInt(MAGICO).putInt(raiz).putInt(totalPaginas).putLong(quantidade)
+            .put(alterada ? GRAVACAO_PENDENTE : 0);
+        metadados.clear();
+        escreverPagina(0, metadados);
+    }
+    
+    private void escreverPagina(int pagina, ByteBuffer buffer) throws IOException {
+        long posicao = (long) pagina * TAMANHO_PAGINA;
+        while (buffer.hasRemaining()) {
+            canal.write(buffer, posicao + buffer.position());
+        }
+    }
+    
+    private static ByteBuffer codificar(No no) {
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_PAGINA);
+        buffer.put((byte) (no.folha ? 1 : 0)).putShort((short) no.chaves.size()).putInt(no.proxima);
+        if (!no.folha) {
+            buffer.putInt(no.filhos.get(0));
+        }
+        for (int i = 0; i < no.chaves.size(); i++) {
+            byte[] chave = no.chaves.get(i).getBytes(StandardCharsets.UTF_8);
+            buffer.put((byte) chave.length).put(chave).position(buffer.position() + TAMANHO_MAXIMO_CHAVE - chave.length);
+            if (no.folha) {
+                buffer.putLong(no.valores.get(i));
+            } else {
+                buffer.putInt(no.filhos.get(i + 1));
+            }
+        }
+        buffer.clear();
+        return buffer;
+    }
+    
+    private static No decodificar(int pagina, ByteBuffer buffer) {
+        No no = new No(pagina, buffer.get() == 1);
+        int entradas = buffer.getShort();
+        no.proxima = buffer.getInt();
+        if (!no.folha) {
+            no.filhos.add(buffer.getInt());
+        }
+        byte[] chave = new byte[TAMANHO_MAXIMO_CHAVE];
+        for (int i = 0; i < entradas; i++) {
+            int tamanho = buffer.get() & 0xff;
+            buffer.get(chave, 0, TAMANHO_MAXIMO_CHAVE);
+            no.chaves.add(new String(chave, 0, tamanho, StandardCharsets.UTF_8));
+            if (no.folha) {
+                no.valores.add(buffer.getLong());
+            } else {
+                no.filhos.add(buffer.getInt());
+            }
+        }
+        return no;
+    }
+    
+    private static final class No {
+        final int pagina;
+        final boolean folha;
+        final List<String> chaves = new ArrayList<>();
+        // Folhas usam valores; nós internos usam filhos (um a mais que as chaves)
+        final List<Long> valores = new ArrayList<>();
+        final List<Integer> filhos = new ArrayList<>();
+        int proxima = SEM_PAGINA;
+        boolean sujo;
+        
+        No(int pagina, boolean folha) {
+            this.pagina = pagina;
+            this.folha = folha;
+        }
+    }
+    
+    private static final class Divisao {
+        final String separador;
+        final int pagina;
+        
+        Divisao(String separador, int pagina) {
+            this.separador = separador;
+            this.pagina = pagina;
+        }
+    }
+}
+
+// Repositório de alunos em disco, para cadastros maiores que o heap: a árvore B+ por matrícula
+// (alunos.idx) aponta para os registros serializados em alunos.dat, gravado só por anexação.
+// Um segundo índice (curso + separador + matrícula) atende as buscas por curso.
+// Listagens e páginas seguem a ordem de matrícula; salvar uma matrícula existente atualiza o registro.
+// Os índices são sincronizados a cada salvarTodos, a cada INTERVALO_SINCRONIZACAO escritas avulsas e no
+// fechamento. Remoções também são anexadas a alunos.dat, que assim basta para refazer os índices quando
+// uma queda os deixa com gravação pendente (ver ArvoreBMais.abrir e reconstruirIndices).
+class AlunoRepositoryDisco implements AlunoRepository, Closeable {
+    static final int PAGINAS_EM_CACHE_PADRAO = 4096;
+    static final int INTERVALO_SINCRONIZACAO = 10_000;
+    private static final char SEPARADOR_CURSO = '\u0000';
+    private static final int TAMANHO_LEITURA = 500;
+    
+    private final ArvoreBMais porMatricula;
+    private final ArvoreBMais porCurso;
+    private final FileChannel registros;
+    private final ReentrantLock travaEscrita = new ReentrantLock();
+    private final Logger logger;
+    // Matrículas gravadas, reconstruído das folhas do índice na abertura
+    private final FiltroExistencia filtro;
+    private volatile CacheEntidades<Aluno> cache;
+    private int escritasDesdeSincronizacao;
+    
+    AlunoRepositoryDisco(Path diretorio, int paginasEmCache, Logger logger) throws IOException {
+        this(diretorio, paginasEmCache, FiltroExistencia.TAXA_FALSO_POSITIVO_PADRAO, logger);
+    }
+    
+    AlunoRepositoryDisco(Path diretorio, int paginasEmCache, double taxaFalsoPositivo, Logger logger) throws IOException {
+        this.logger = logger;
+        Files.createDirectories(diretorio);
+        this.porMatricula = ArvoreBMais.abrir(diretorio.resolve("alunos.idx"), paginasEmCache);
+        this.porCurso = ArvoreBMais.abrir(diretorio.resolve("alunos-curso.idx"), paginasEmCache / 4);
+        this.registros = FileChannel.open(diretorio.resolve("alunos.dat"), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (porMatricula.foiDescartada() || porCurso.foiDescartada()) {
+            reconstruirIndices();
+            logger.info(String.format("Índices de alunos reconstruídos a partir de %s (%d alunos)",
+                diretorio.resolve("alunos.dat"), porMatricula.getQuantidade()));
+        }
+        this.filtro = new FiltroExistencia(taxaFalsoPositivo, porMatricula::getQuantidade,
+            consumidor -> porMatricula.percorrer(null, true, (matricula, posicao) -> {
+                consumidor.accept(matricula);
+                return true;
+            }));
+    }
+    
+    @Override
+    public void salvar(Aluno aluno) {
+        travaEscrita.lock();
+        try {
+            gravar(aluno);
+            sincronizarPeriodicamente(1);
+        } finally {
+            travaEscrita.unlock();
+        }
+        logger.debug(String.format("Aluno %s salvo no repositório", aluno.getNome()));
+    }
+    
+    // Um lote inteiro é gravado sob a trava e sincronizado uma vez ao final
+    @Override
+    public void salvarTodos(Collection<? extends Aluno> alunos) {
+        if (alunos.isEmpty()) return;
+        travaEscrita.lock();
+        try {
+            for (Aluno aluno : alunos) {
+                gravar(aluno);
+            }
+            sincronizar();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao sincronizar alunos", e);
+        } finally {
+            travaEscrita.unlock();
+        }
+    }
+    
+    // As chaves são conferidas antes de qualquer escrita: uma matrícula longa demais não deixa
+    // registro anexado nem índice atualizado pela metade
+    private void gravar(Aluno aluno) {
+        String limite = verificarLimitesChaves(aluno.getMatricula(), aluno.getCurso());
+        if (limite != null) {
+            throw new IllegalArgumentException(limite + ": " + aluno.getMatricula());
+        }
+        long anterior = porMatricula.buscar(aluno.getMatricula());
+        if (anterior >= 0) {
+            porCurso.remover(chaveCurso(lerRegistro(anterior)));
+        }
+        // No filtro antes do índice, como em TabelaJdbc.salvarTodos: buscarPorId não lê a árvore sem passar por ele
+        filtro.registrar(aluno.getMatricula());
+        byte[] dados;
+        try {
+            dados = CodecsEntidades.ALUNO.codificar(aluno);
+            long posicao = anexarRegistro(dados);
+            porMatricula.inserir(aluno.getMatricula(), posicao);
+            porCurso.inserir(chaveCurso(aluno), posicao);
+        } finally {
+            filtro.concluir(aluno.getMatricula());
+        }
+        CacheEntidades<Aluno> cacheAtual = cache;
+        if (cacheAtual != null) {
+            cacheAtual.guardar(aluno.getMatricula(), aluno, dados.length);
+        }
+    }
+    
+    // Chamado com a trava de escrita
+    private void sincronizarPeriodicamente(int escritas) {
+        escritasDesdeSincronizacao += escritas;
+        if (escritasDesdeSincronizacao < INTERVALO_SINCRONIZACAO) return;
+        try {
+            sincronizar();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao sincronizar alunos", e);
+        }
+    }
+    
+    // Registros primeiro, depois os índices que apontam para eles
+    public void sincronizar() throws IOException {
+        travaEscrita.lock();
+        try {
+            registros.force(false);
+            porMatricula.sincronizar();
+            porCurso.sincronizar();
+            escritasDesdeSincronizacao = 0;
+        } finally {
+            travaEscrita.unlock();
+        }
+    }
+    
+    // Chaves de até ArvoreBMais.TAMANHO_MAXIMO_CHAVE bytes (UTF-8), no índice por matrícula e no por curso
+    @Override
+    public String verificarLimitesChaves(String matricula, String curso) {
+        if (!ArvoreBMais.chaveCabe(matricula)) {
+            return String.format("Matrícula excede %d bytes", ArvoreBMais.TAMANHO_MAXIMO_CHAVE);
+        }
+        if (!ArvoreBMais.chaveCabe(prefixoCurso(curso) + matricula)) {
+            return String.format("Curso e matrícula excedem juntos %d bytes", ArvoreBMais.TAMANHO_MAXIMO_CHAVE - 1);
+        }
+        return null;
+    }
+    
+    @Override
+    public void remover(Aluno aluno) {
+        travaEscrita.lock();
+        try {
+            if (removerDosIndices(aluno.getMatricula())) {
+                anexarRemocao(aluno.getMatricula());
+            }
+            CacheEntidades<Aluno> cacheAtual = cache;
+            if (cacheAtual != null) {
+                cacheAtual.invalidar(aluno.getMatricula());
+            }
+            sincronizarPeriodicamente(1);
+        } finally {
+            travaEscrita.unlock();
+        }
+        logger.debug(String.format("Aluno %s removido do repositório", aluno.getNome()));
+    }
+    
+    @Override
+    public Aluno buscarPorId(String matricula) {
+        if (matricula == null || !filtro.podeExistir(matricula)) return null;
+        CacheEntidades<Aluno> cacheAtual = cache;
+        if (cacheAtual == null) {
+            long posicao = porMatricula.buscar(matricula);
+            return posicao < 0 ? null : lerRegistro(posicao);
+        }
+        Aluno emCache = cacheAtual.obter(matricula);
+        if (emCache != null) return emCache;
+        long geracao = cacheAtual.getGeracao();
+        long posicao = porMatricula.buscar(matricula);
+        if (posicao < 0) return null;
+        ByteBuffer dados = lerDados(posicao);
+        int tamanho = dados.remaining();
+        Aluno aluno = CodecsEntidades.ALUNO.ler(dados, null);
+        cacheAtual.guardarLido(matricula, aluno, tamanho, geracao);
+        return aluno;
+    }
+    
+    // Alunos lidos por matrícula ficam no cache; gravações o atualizam e remoções o invalidam
+    public CacheEntidades<Aluno> habilitarCache(long limiteBytes) {
+        cache = new CacheEntidades<>("alunos", limiteBytes);
+        return cache;
+    }
+    
+    public CacheEntidades<Aluno> getCache() { return cache; }
+    
+    @Override
+    public boolean existe(String matricula) {
+        return matricula != null && filtro.podeExistir(matricula) && porMatricula.buscar(matricula) >= 0;
+    }
+    
+    // Limitado a Integer.MAX_VALUE, o maior total que Repositorio.count() representa
+    @Override
+    public int count() {
+        return (int) Math.min(porMatricula.getQuantidade(), Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public Pagina<Aluno> listarPagina(String cursor, int tamanho) {
+        Pagina.validarTamanho(tamanho);
+        List<Long> posicoes = new ArrayList<>(tamanho);
+        String[] ultima = new String[1];
+        boolean[] haMais = new boolean[1];
+        String inicio = Pagina.decodificarCursorChave(cursor);
+        porMatricula.percorrer(inicio, false, (matricula, posicao) -> {
+            if (posicoes.size() == tamanho) {
+                haMais[0] = true;
+                return false;
+            }
+            posicoes.add(posicao);
+            ultima[0] = matricula;
+            return true;
+        });
+        List<Aluno> alunos = new ArrayList<>(posicoes.size());
+        for (long posicao : posicoes) {
+            alunos.add(lerRegistro(posicao));
+        }
+        return new Pagina<>(alunos, haMais[0] ? Pagina.codificarCursorChave(ultima[0]) : null);
+    }
+    
+    @Override
+    public Stream<Aluno> stream() {
+        return Pagina.emSequencia(cursor -> listarPagina(cursor, TAMANHO_LEITURA));
+    }
+    
+    @Override
+    public void forEach(Consumer<? super Aluno> acao) {
+        stream().forEach(acao);
+    }
+    
+    @Override
+    public List<Aluno> listarTodos() {
+        return stream().collect(Collectors.toList());
+    }
+    
+    // Varredura por faixa: alunos com matrícula em [de, ate), em ordem de matrícula
+    public List<Aluno> buscarPorFaixaMatricula(String de, String ate) {
+        List<Long> posicoes = new ArrayList<>();
+        porMatricula.percorrer(de, true, (matricula, posicao) -> {
+            if (ate != null && matricula.compareTo(ate) >= 0) return false;
+            posicoes.add(posicao);
+            return true;
+        });
+        List<Aluno> alunos = new ArrayList<>(posicoes.size());
+        for (long posicao : posicoes) {
+            alunos.add(lerRegistro(posicao));
+        }
+        return alunos;
+    }
+    
+    @Override
+    public boolean existeAlunoNoCurso(String curso) {
+        if (curso == null) return false;
+        String prefixo = prefixoCurso(curso);
+        boolean[] encontrado = new boolean[1];
+        porCurso.percorrer(prefixo, true, (chave, posicao) -> {
+            encontrado[0] = chave.startsWith(prefixo);
+            return false;
+        });
+        return encontrado[0];
+    }
+    
+    @Override
+    public List<Aluno> buscarPorCurso(String curso) {
+        List<Aluno> alunos = new ArrayList<>();
+        if (curso == null) return alunos;
+        String prefixo = prefixoCurso(curso);
+        List<Long> posicoes = new ArrayList<>();
+        porCurso.percorrer(prefixo, true, (chave, posicao) -> {
+            if (!chave.startsWith(prefixo)) return false;
+            posicoes.add(posicao);
+            return true;
+        });
+        for (long posicao : posicoes) {
+            alunos.add(lerRegistro(posicao));
+        }
+        return alunos;
+    }
+    
+    // O único índice declarado, o por curso, é atendido pela árvore por curso
+    @Override
+    public List<Aluno> buscarPorIndice(String nomeIndice, String chave) {
+        exigirIndiceCurso(nomeIndice);
+        return buscarPorCurso(chave);
+    }
+    
+    @Override
+    public boolean existePorIndice(String nomeIndice, String chave) {
+        exigirIndiceCurso(nomeIndice);
+        return existeAlunoNoCurso(chave);
+    }
+    
+    @Override
+    public Aluno buscarUnicoPorIndice(String nomeIndice, String chave) {
+        exigirIndiceCurso(nomeIndice);
+        throw new IllegalStateException("Índice não é único");
+    }
+    
+    private static void exigirIndiceCurso(String nomeIndice) {
+        if (!INDICE_CURSO.equals(nomeIndice)) {
+            throw new IllegalArgumentException("Índice não declarado: " + nomeIndice);
+        }
+    }
+    
+    public FiltroExistencia getFiltro() { return filtro; }
+    public long getAcertosCache() { return porMatricula.getAcertosCache(); }
+    public long getFaltasCache() { return porMatricula.getFaltasCache(); }
+    
+    private static String prefixoCurso(String curso) {
+        return IndexedRepositorio.normalizar(curso, true) + SEPARADOR_CURSO;
+    }
+    
+    private static String chaveCurso(Aluno aluno) {
+        return prefixoCurso(aluno.getCurso()) + aluno.getMatricula();
+    }
+    
+    private boolean removerDosIndices(String matricula) {
+        long posicao = porMatricula.buscar(matricula);
+        if (posicao < 0) return false;
+        porCurso.remover(chaveCurso(lerRegistro(posicao)));
+        porMatricula.remover(matricula);
+        return true;
+    }
+    
+    // Refaz os dois índices percorrendo alunos.dat do início: o último registro de cada matrícula prevalece
+    // e uma remoção anexada a retira. Um registro incompleto no fim (anexação interrompida) é truncado.
+    private void reconstruirIndices() throws IOException {
+        porMatricula.limpar();
+        porCurso.limpar();
+        long fim = registros.size();
+        long posicao = 0;
+        ByteBuffer cabecalho = ByteBuffer.allocate(4);
+        while (posicao + 4 <= fim) {
+            cabecalho.clear();
+            lerCompleto(cabecalho, posicao);
+            int tamanho = cabecalho.flip().getInt();
+            if (tamanho == Integer.MIN_VALUE || posicao + 4 + Math.abs(tamanho) > fim) break;
+            ByteBuffer dados = ByteBuffer.allocate(Math.abs(tamanho));
+            lerCompleto(dados, posicao + 4);
+            dados.flip();
+            if (tamanho < 0) {
+                removerDosIndices(StandardCharsets.UTF_8.decode(dados).toString());
+            } else {
+                Aluno aluno = CodecsEntidades.ALUNO.ler(dados, null);
+                removerDosIndices(aluno.getMatricula());
+                porMatricula.inserir(aluno.getMatricula(), posicao);
+                porCurso.inserir(chaveCurso(aluno), posicao);
+            }
+            posicao += 4 + Math.abs(tamanho);
+        }
+        if (posicao < fim) {
+            registros.truncate(posicao);
+        }
+        sincronizar();
+    }
+    
+    // Registro: [int tamanho][dados do codec]; retorna a posição do registro no arquivo
+    private long anexarRegistro(byte[] dados) {
+        return anexar(dados.length, dados);
+    }
+    
+    // Remoção: [int -tamanho][matrícula em UTF-8], lida apenas por reconstruirIndices
+    private void anexarRemocao(String matricula) {
+        byte[] dados = matricula.getBytes(StandardCharsets.UTF_8);
+        anexar(-dados.length, dados);
+    }
+    
+    private long anexar(int cabecalho, byte[] dados) {
+        try {
+            long posicao = registros.size();
+            ByteBuffer buffer = ByteBuffer.allocate(4 + dados.length);
+            buffer.putInt(cabecalho).put(dados).flip();
+            while (buffer.hasRemaining()) {
+                registros.write(buffer, posicao + buffer.position());
+            }
+            return posicao;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar aluno", e);
+        }
+    }
+    
+    private Aluno lerRegistro(long posicao) {
+        return CodecsEntidades.ALUNO.ler(lerDados(posicao), null);
+    }
+    
+    private ByteBuffer lerDados(long posicao) {
+        try {
+            ByteBuffer tamanho = ByteBuffer.allocate(4);
+            lerCompleto(tamanho, posicao);
+            ByteBuffer dados = ByteBuffer.allocate(tamanho.flip().getInt());
+            lerCompleto(dados, posicao + 4);
+            return dados.flip();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao ler aluno", e);
+        }
+    }
+    
+    private void lerCompleto(ByteBuffer buffer, long posicao) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (registros.read(buffer, posicao + buffer.position()) < 0) {
+                throw new IOException("Registro de aluno truncado na posição " + posicao);
+            }
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        travaEscrita.lock();
+        try {
+            registros.force(false);
+            porMatricula.close();
+            porCurso.close();
+            registros.close();
+        } finally {
+            travaEscrita.unlock();
+        }
+    }
+}
+
+// Benchmark de buscas por matrícula: repositório em memória x árvore B+ em disco.
+// Uso: java BenchmarkAlunosDisco [diretório] [quantidade...]   (padrão: 1000000 10000000)
+final class BenchmarkAlunosDisco {
+    private static final int BUSCAS = 1_000_000;
+    
+    private BenchmarkAlunosDisco() { }
+    
+    public static void main(String[] args) throws IOException {
+        Path diretorio = Paths.get(args.length > 0 ? args[0] : "benchmark-alunos");
+        List<Integer> quantidades = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            quantidades.add(Integer.parseInt(args[i]));
+        }
+        if (quantidades.isEmpty()) {
+            quantidades.add(1_000_000);
+            quantidades.add(10_000_000);
+        }
+        Logger logger = new LoggerSilencioso();
+        for (int quantidade : quantidades) {
+            System.out.printf("%n=== %,d alunos, %,d buscas ===%n", quantidade, BUSCAS);
+            try {
+                medir("memória", new AlunoRepositoryMemoria(logger), quantidade);
+            } catch (OutOfMemoryError e) {
+                System.out.println("memória: heap insuficiente (" + e.getMessage() + ")");
+            }
+            Path destino = diretorio.resolve("n" + quantidade);
+            limpar(destino);
+            try (AlunoRepositoryDisco repositorio = new AlunoRepositoryDisco(
+                    destino, AlunoRepositoryDisco.PAGINAS_EM_CACHE_PADRAO, logger)) {
+                medir("disco", repositorio, quantidade);
+                System.out.printf("disco: cache de páginas %,d acertos / %,d faltas%n",
+                    repositorio.getAcertosCache(), repositorio.getFaltasCache());
+            }
+        }
+    }
+    
+    private static void medir(String nome, AlunoRepository repositorio, int quantidade) {
+        long inicio = System.nanoTime();
+        for (int i = 0; i < quantidade; i++) {
+            repositorio.salvar(new Aluno("Aluno " + i, matricula(i), "Curso " + (i % 50)));
+        }
+        long insercao = System.nanoTime() - inicio;
+        
+        Random aleatorio = new Random(42);
+        int encontrados = 0;
+        inicio = System.nanoTime();
+        for (int i = 0; i < BUSCAS; i++) {
+            // Metade das buscas é por matrículas inexistentes
+            int alvo = aleatorio.nextInt(quantidade * 2);
+            if (repositorio.existe(matricula(alvo))) {
+                encontrados++;
+            }
+        }
+        long buscas = System.nanoTime() - inicio;
+        System.out.printf("%s: inserção %,d ms | %,d buscas em %,d ms (%,.0f/s), %,d encontradas%n",
+            nome, insercao / 1_000_000, BUSCAS, buscas / 1_000_000, BUSCAS / (buscas / 1e9), encontrados);
+        if (repositorio instanceof AlunoRepositoryDisco) {
+            FiltroExistencia filtro = ((AlunoRepositoryDisco) repositorio).getFiltro();
+            System.out.printf("%s: filtro de Bloom descartou %,d de %,d consultas sem ler o índice%n",
+                nome, filtro.getNegativas(), filtro.getConsultas());
+        }
+    }
+    
+    private static String matricula(int numero) {
+        return String.format("%010d", numero);
+    }
+    
+    private static void limpar(Path destino) throws IOException {
+        for (String arquivo : List.of("alunos.idx", "alunos-curso.idx", "alunos.dat")) {
+            Files.deleteIfExists(destino.resolve(arquivo));
+        }
+    }
+}
+
+// ==================== IMPORTAÇÃO CSV ====================
+// Campos separados por vírgula ou ponto e vírgula (detectado na primeira linha), com aspas duplas
+// opcionais no início do campo e "" para aspas dentro dele. Campos entre aspas não podem conter quebras de linha.
+final class Csv {
+    private Csv() { }
+    
+    static char detectarSeparador(String linha) {
+        return linha.indexOf(';') >= 0 && linha.indexOf(',') < 0 ? ';' : ',';
+    }
+    
+    static List<String> separarCampos(String linha, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (entreAspas) {
+                if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    campo.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreAspas = false;
+                } else {
+                    campo.append(c);
+                }
+            } else if (c == '"' && campo.toString().isBlank()) {
+                // Aspas só delimitam o campo quando o abrem; no meio do texto são literais
+                campo.setLength(0);
+                entreAspas = true;
+            } else if (c == separador) {
+                campos.add(campo.toString().trim());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        campos.add(campo.toString().trim());
+        return campos;
+    }
+    
+    static String linha(char separador, String... campos) {
+        StringBuilder linha = new StringBuilder();
+        for (int i = 0; i < campos.length; i++) {
+            if (i > 0) linha.append(separador);
+            String campo = campos[i] == null ? "" : campos[i];
+            if (campo.indexOf(separador) >= 0 || campo.indexOf('"') >= 0) {
+                linha.append('"').append(campo.replace("\"", "\"\"")).append('"');
+            } else {
+                linha.append(campo);
+            }
+        }
+        return linha.toString();
+    }
+}
+
+// Totais de uma importação; as linhas rejeitadas ficam em arquivoErros (null se não houve rejeição)
+class ResumoImportacao {
+    private final long linhasLidas;
+    private final long importados;
+    private final long rejeitados;
+    private final Path arquivoErros;
+    
+    ResumoImportacao(long linhasLidas, long importados, long rejeitados, Path arquivoErros) {
+        this.linhasLidas = linhasLidas;
+        this.importados = importados;
+        this.rejeitados = rejeitados;
+        this.arquivoErros = arquivoErros;
+    }
+    
+    public long getLinhasLidas() { return linhasLidas; }
+    public long getImportados() { return importados; }
+    public long getRejeitados() { return rejeitados; }
+    public Path getArquivoErros() { return arquivoErros; }
+}
+
+// Lê o CSV em lotes de TAMANHO_LOTE linhas: cada lote é validado de uma vez e os alunos válidos são
+// gravados numa única chamada a salvarTodos. Linhas rejeitadas vão para o arquivo de erros, seguidas do
+// motivo. A memória usada depende do tamanho do lote, não do arquivo. Lotes já gravados permanecem
+// gravados se a importação for interrompida.
+class ImportadorAlunosCsv {
+    static final int TAMANHO_LOTE = 1000;
+    
+    private final AlunoRepository alunoRepository;
+    private final ValidadorSistema validador;
+    private final Logger logger;
+    private final Path arquivoErros;
+    private final List<String[]> lote = new ArrayList<>(TAMANHO_LOTE);
+    private final List<String> linhasDoLote = new ArrayList<>(TAMANHO_LOTE);
+    private BufferedWriter erros;
+    private char separador;
+    private long linhasLidas;
+    private long importados;
+    private long rejeitados;
+    
+    ImportadorAlunosCsv(AlunoRepository alunoRepository, ValidadorSistema validador, Logger logger, Path arquivoErros) {
+        this.alunoRepository = alunoRepository;
+        this.validador = validador;
+        this.logger = logger;
+        this.arquivoErros = arquivoErros;
+    }
+    
+    // Cabeçalho opcional: a primeira linha é ignorada se a segunda coluna começar com "matr"
+    ResumoImportacao importar(Path arquivo) throws IOException {
+        Files.deleteIfExists(arquivoErros);
+        try (BufferedReader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            boolean primeira = true;
+            String linha;
+            while ((linha = leitor.readLine()) != null) {
+                if (linha.isBlank()) continue;
+                if (primeira) {
+                    primeira = false;
+                    separador = Csv.detectarSeparador(linha);
+                    List<String> campos = Csv.separarCampos(linha, separador);
+                    if (campos.size() > 1 && IndexedRepositorio.normalizar(campos.get(1), true).startsWith("matr")) {
+                        continue;
+                    }
+                }
+                linhasLidas++;
+                List<String> campos = Csv.separarCampos(linha, separador);
+                if (campos.size() != 3) {
+                    rejeitar(linha, "Esperados 3 campos (nome, matrícula, curso), encontrados " + campos.size());
+                    continue;
+                }
+                lote.add(campos.toArray(new String[0]));
+                linhasDoLote.add(linha);
+                if (lote.size() == TAMANHO_LOTE) {
+                    gravarLote();
+                }
+            }
+            if (!lote.isEmpty()) {
+                gravarLote();
+            }
+        } finally {
+            if (erros != null) {
+                erros.close();
+            }
+        }
+        return new ResumoImportacao(linhasLidas, importados, rejeitados, rejeitados > 0 ? arquivoErros : null);
     }
     
-    public List<AvaliacaoTurma> listarAvaliacoesTurma() {
-        return new ArrayList<>(avaliacoesTurma);
-    }
+    long getImportados() { return importados; }
     
-    public int getTotalAvaliacoes() {
-        return avaliacoesTurma.stream()
-            .mapToInt(at -> at.getAvaliacoesAlunos().size())
-            .sum();
+    private void gravarLote() throws IOException {
+        List<ResultadoValidacao> validacoes = validador.validarLoteCadastroAlunos(lote);
+        List<Aluno> validos = new ArrayList<>(lote.size());
+        for (int i = 0; i < lote.size(); i++) {
+            ResultadoValidacao validacao = validacoes.get(i);
+            if (validacao.isValido()) {
+                String[] cadastro = lote.get(i);
+                validos.add(new Aluno(cadastro[0], cadastro[1], cadastro[2]));
+            } else {
+                rejeitar(linhasDoLote.get(i), String.join(", ", validacao.getDetalhes()));
+            }
+        }
+        alunoRepository.salvarTodos(validos);
+        importados += validos.size();
+        logger.debug(String.format("Lote de importação: %d alunos gravados", validos.size()));
+        lote.clear();
+        linhasDoLote.clear();
     }
     
-    public boolean existeAvaliacaoTurma(String codigoTurma) {
-        return avaliacoesTurma.stream()
-            .anyMatch(at -> at.getTurma().getCodigo().equals(codigoTurma));
+    // O arquivo de erros só é criado na primeira rejeição
+    private void rejeitar(String linha, String motivo) throws IOException {
+        if (erros == null) {
+            erros = Files.newBufferedWriter(arquivoErros, StandardCharsets.UTF_8);
+        }
+        erros.write(linha);
+        erros.write(separador);
+        erros.write(Csv.linha(separador, motivo));
+        erros.newLine();
+        rejeitados++;
     }
 }
 
@@ -1153,6 +5483,11 @@ class ValidadorSistema {
             erros.add(String.format("Matrícula '%s' já está cadastrada", matricula));
         }
         
+        String limite = verificarLimitesChaves(matricula, curso);
+        if (limite != null) {
+            erros.add(limite);
+        }
+        
         if (erros.isEmpty()) {
             return ResultadoValidacao.sucesso("Dados do aluno válidos");
         } else {
@@ -1160,6 +5495,56 @@ class ValidadorSistema {
         }
     }
     
+    // Validação de um lote de cadastros {nome, matrícula, curso}: cada curso é consultado uma vez por lote e
+    // matrículas repetidas dentro do lote são rejeitadas (as de lotes já gravados estão no repositório)
+    public List<ResultadoValidacao> validarLoteCadastroAlunos(List<String[]> cadastros) {
+        Map<String, Boolean> cursosExistentes = new HashMap<>();
+        Set<String> matriculasDoLote = new HashSet<>();
+        List<ResultadoValidacao> resultados = new ArrayList<>(cadastros.size());
+        
+        for (String[] cadastro : cadastros) {
+            String nome = cadastro[0];
+            String matricula = cadastro[1];
+            String curso = cadastro[2];
+            List<String> erros = new ArrayList<>();
+            
+            if (nome == null || nome.trim().isEmpty()) {
+                erros.add("Nome não pode ser vazio");
+            }
+            
+            if (matricula == null || matricula.trim().isEmpty()) {
+                erros.add("Matrícula não pode ser vazia");
+            } else if (!matriculasDoLote.add(matricula)) {
+                erros.add(String.format("Matrícula '%s' repetida no lote", matricula));
+            } else if (alunoRepository.existe(matricula)) {
+                erros.add(String.format("Matrícula '%s' já está cadastrada", matricula));
+            }
+            
+            if (curso == null || curso.trim().isEmpty()) {
+                erros.add("Curso não pode ser vazio");
+            } else if (!cursosExistentes.computeIfAbsent(IndexedRepositorio.normalizar(curso, true),
+                    chave -> cursoRepository.existePorNome(curso))) {
+                erros.add(String.format("Curso '%s' não existe no sistema", curso));
+            }
+            
+            String limite = verificarLimitesChaves(matricula, curso);
+            if (limite != null) {
+                erros.add(limite);
+            }
+            
+            resultados.add(erros.isEmpty()
+                ? ResultadoValidacao.sucesso("Dados do aluno válidos")
+                : ResultadoValidacao.erro("Erros de validação: " + String.join(", ", erros)));
+        }
+        return resultados;
+    }
+    
+    // Chaves que o repositório de alunos não conseguiria gravar (ex.: árvore B+ com chaves de até 64 bytes)
+    private String verificarLimitesChaves(String matricula, String curso) {
+        if (matricula == null || curso == null) return null;
+        return alunoRepository.verificarLimitesChaves(matricula, curso);
+    }
+    
     public ResultadoValidacao validarCriacaoTurma(String codigoTurma, String codigoCurso) {
         List<String> erros = new ArrayList<>();
         
@@ -1239,25 +5624,84 @@ class ResultadoValidacao {
 
 // ==================== SERVICE (BUSINESS LOGIC) ====================
 class SistemaEducacionalService {
+    private static final int PARTICOES_AVALIACOES = 32;
+    
     private final AlunoRepository alunoRepository;
     private final UsuarioRepository usuarioRepository;
     private final CursoRepository cursoRepository;
     private final TurmaRepository turmaRepository;
     private final AvaliacaoRepository avaliacaoRepository;
     private final ValidadorSistema validador;
+    private final PersistenciaSistema persistencia;
+    private final ArmazenamentoJdbc armazenamentoJdbc;
+    // Serializa os registros de notas de cada turma (ver avaliacoesVigentes)
+    private final TravasParticionadas travasAvaliacoes = new TravasParticionadas(PARTICOES_AVALIACOES);
     private final Logger logger;
     
     public SistemaEducacionalService(Logger logger) {
+        this(logger, new AlunoRepositoryMemoria(logger));
+    }
+    
+    // Modo em memória com outro repositório de alunos (ex.: AlunoRepositoryDisco)
+    public SistemaEducacionalService(Logger logger, AlunoRepository alunoRepository) {
+        this.logger = logger;
+        this.alunoRepository = alunoRepository;
+        this.usuarioRepository = new UsuarioRepositoryMemoria(logger);
+        this.cursoRepository = new CursoRepositoryMemoria(logger);
+        this.turmaRepository = new TurmaRepositoryMemoria(logger);
+        this.avaliacaoRepository = new AvaliacaoRepositoryMemoria(logger);
+        this.validador = new ValidadorSistema(cursoRepository, alunoRepository, turmaRepository, logger);
+        this.persistencia = null;
+        this.armazenamentoJdbc = null;
+    }
+    
+    // Modo persistente: recupera o estado gravado em diretorioDados e registra cada alteração no journal
+    public SistemaEducacionalService(Logger logger, Path diretorioDados) {
+        this(logger, diretorioDados, false);
+    }
+    
+    // Com cargaSobDemanda, os repositórios só são lidos do armazenamento no primeiro acesso
+    public SistemaEducacionalService(Logger logger, Path diretorioDados, boolean cargaSobDemanda) {
+        this.logger = logger;
+        RepositoriosMemoria repositorios = new RepositoriosMemoria(logger);
+        this.alunoRepository = repositorios.alunos;
+        this.usuarioRepository = repositorios.usuarios;
+        this.cursoRepository = repositorios.cursos;
+        this.turmaRepository = repositorios.turmas;
+        this.avaliacaoRepository = repositorios.avaliacoes;
+        this.validador = new ValidadorSistema(cursoRepository, alunoRepository, turmaRepository, logger);
+        this.armazenamentoJdbc = null;
+        try {
+            this.persistencia = PersistenciaSistema.abrir(diretorioDados, logger);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível abrir os dados em " + diretorioDados, e);
+        }
+        persistencia.conectar(this, repositorios, cargaSobDemanda);
+    }
+    
+    // Modo banco de dados: os repositórios consultam o banco e não mantêm as entidades em memória
+    public SistemaEducacionalService(Logger logger, ArmazenamentoJdbc armazenamento) {
         this.logger = logger;
-        this.alunoRepository = new AlunoRepository(logger);
-        this.usuarioRepository = new UsuarioRepository(logger);
-        this.cursoRepository = new CursoRepository(logger);
-        this.turmaRepository = new TurmaRepository(logger);
-        this.avaliacaoRepository = new AvaliacaoRepository(logger);
+        this.alunoRepository = armazenamento.getAlunoRepository();
+        this.usuarioRepository = armazenamento.getUsuarioRepository();
+        this.cursoRepository = armazenamento.getCursoRepository();
+        this.turmaRepository = armazenamento.getTurmaRepository();
+        this.avaliacaoRepository = armazenamento.getAvaliacaoRepository();
         this.validador = new ValidadorSistema(cursoRepository, alunoRepository, turmaRepository, logger);
+        this.persistencia = null;
+        this.armazenamentoJdbc = armazenamento;
     }
     
     public void carregarDadosIniciais() {
+        if (persistencia != null && persistencia.possuiDadosRecuperados()) {
+            logger.sucesso("Dados persistidos recuperados com sucesso");
+            return;
+        }
+        if (armazenamentoJdbc != null && armazenamentoJdbc.possuiDados()) {
+            logger.sucesso("Dados do banco de dados disponíveis");
+            return;
+        }
+        
         // Primeiro criar os cursos
         Curso cursoJava = new Curso("Java OO", "JAVA101", 60);
         cursoRepository.salvar(cursoJava);
@@ -1361,6 +5805,68 @@ class SistemaEducacionalService {
         }
     }
     
+    // Matrícula em massa: turma e curso são validados uma vez, cada aluno é comparado ao roster (contemAluno)
+    // e a turma é salva uma única vez. Os dados do resultado são o resultado por matrícula, na ordem recebida
+    // (matrículas repetidas aparecem uma vez).
+    public ResultadoOperacao matricularAlunosEmTurma(String codigoTurma, List<String> matriculas) {
+        return matricularEmMassa(codigoTurma, matriculas, alunoRepository::buscarPorId);
+    }
+    
+    // Seletor: todos os alunos do curso informado (nome do curso, como em Aluno.getCurso)
+    public ResultadoOperacao matricularAlunosDoCursoEmTurma(String codigoTurma, String nomeCurso) {
+        Map<String, Aluno> alunosDoCurso = new LinkedHashMap<>();
+        for (Aluno aluno : alunoRepository.buscarPorCurso(nomeCurso)) {
+            alunosDoCurso.put(aluno.getMatricula(), aluno);
+        }
+        return matricularEmMassa(codigoTurma, alunosDoCurso.keySet(), alunosDoCurso::get);
+    }
+    
+    private ResultadoOperacao matricularEmMassa(String codigoTurma, Collection<String> matriculas,
+                                                Function<String, Aluno> buscarAluno) {
+        try {
+            Turma turma = turmaRepository.buscarPorId(codigoTurma);
+            if (turma == null) {
+                return ResultadoOperacao.erro("Turma não encontrada");
+            }
+            
+            ResultadoValidacao validacaoCurso = validador.validarCursoExiste(turma.getCurso().getCodigo());
+            if (!validacaoCurso.isValido()) {
+                return ResultadoOperacao.erro("Não foi possível matricular alunos: " +
+                    String.join(", ", validacaoCurso.getDetalhes()));
+            }
+            
+            Map<String, ResultadoOperacao> resultados = new LinkedHashMap<>();
+            List<Aluno> novos = new ArrayList<>();
+            for (String matricula : matriculas) {
+                if (resultados.containsKey(matricula)) continue;
+                Aluno aluno = matricula == null ? null : buscarAluno.apply(matricula);
+                if (aluno == null) {
+                    resultados.put(matricula, ResultadoOperacao.erro("Aluno não encontrado"));
+                } else if (turma.contemAluno(matricula)) {
+                    resultados.put(matricula, ResultadoOperacao.erro(String.format(
+                        "Aluno %s já está matriculado na turma %s", aluno.getNome(), turma.getCodigo())));
+                } else {
+                    novos.add(aluno);
+                    resultados.put(matricula, ResultadoOperacao.sucesso(String.format(
+                        "Aluno %s matriculado na turma %s", aluno.getNome(), turma.getCodigo()), aluno));
+                }
+            }
+            
+            if (!novos.isEmpty()) {
+                turma.adicionarAlunos(novos);
+                turmaRepository.salvar(turma);
+            }
+            
+            String mensagem = String.format("%d alunos matriculados na turma %s, %d não matriculados",
+                novos.size(), turma.getCodigo(), resultados.size() - novos.size());
+            logger.info(mensagem);
+            return ResultadoOperacao.sucesso(mensagem, resultados);
+        } catch (Exception e) {
+            logger.erro("Erro ao matricular alunos: " + e.getMessage());
+            return ResultadoOperacao.erro("Erro ao realizar matrículas: " + e.getMessage());
+        }
+    }
+    
     public ResultadoOperacao cadastrarAluno(String nome, String matricula, String curso) {
         try {
             ResultadoValidacao validacao = validador.validarDadosCadastroAluno(nome, matricula, curso);
@@ -1383,6 +5889,22 @@ class SistemaEducacionalService {
         }
     }
     
+    // Importação em massa de alunos de um CSV (nome, matrícula, curso), ver ImportadorAlunosCsv
+    public ResultadoOperacao importarAlunosCsv(Path arquivo, Path arquivoErros) {
+        ImportadorAlunosCsv importador = new ImportadorAlunosCsv(alunoRepository, validador, logger, arquivoErros);
+        try {
+            ResumoImportacao resumo = importador.importar(arquivo);
+            String mensagem = String.format("Importação concluída: %d alunos importados, %d linhas rejeitadas",
+                resumo.getImportados(), resumo.getRejeitados());
+            logger.sucesso(mensagem);
+            return ResultadoOperacao.sucesso(mensagem, resumo);
+        } catch (IOException | RuntimeException e) {
+            logger.erro("Erro ao importar alunos: " + e.getMessage());
+            return ResultadoOperacao.erro(String.format("Erro ao importar alunos após %d importados: %s",
+                importador.getImportados(), e.getMessage()));
+        }
+    }
+    
     public ResultadoOperacao cadastrarCurso(String nome, String codigo, int cargaHoraria, 
                                           String tipo, String informacaoAdicional) {
         try {
@@ -1461,39 +5983,31 @@ class SistemaEducacionalService {
             }
             
             // Verificar se aluno está na turma
-            boolean alunoNaTurma = turma.getAlunos().stream()
-                .anyMatch(a -> a.getMatricula().equals(matriculaAluno));
-            
-            if (!alunoNaTurma) {
+            if (!turma.contemAluno(matriculaAluno)) {
                 return ResultadoOperacao.erro(String.format(
                     "Aluno %s não está matriculado na turma %s", aluno.getNome(), turma.getCodigo()));
             }
             
-            // Buscar ou criar avaliação da turma
-            AvaliacaoTurma avaliacaoTurma = avaliacaoRepository.buscarAvaliacaoTurma(codigoTurma);
-            if (avaliacaoTurma == null) {
-                avaliacaoTurma = new AvaliacaoTurma(turma);
-            }
-            
-            // Buscar ou criar avaliação do aluno
-            AvaliacaoAluno avaliacaoAluno = avaliacaoTurma.getAvaliacoesAlunos().stream()
-                .filter(aa -> aa.getAluno().getMatricula().equals(matriculaAluno))
-                .findFirst()
-                .orElse(null);
-            
-            if (avaliacaoAluno == null) {
-                avaliacaoAluno = new AvaliacaoAluno(aluno);
-                avaliacaoTurma.adicionarAvaliacaoAluno(avaliacaoAluno);
+            ReentrantLock trava = travasAvaliacoes.para(turma.getCodigo());
+            trava.lock();
+            try {
+                // Criar a avaliação e lançá-la para o aluno nas avaliações da turma
+                AvaliacaoTurma avaliacaoTurma = avaliacoesVigentes(turma);
+                Avaliacao avaliacao = new Avaliacao(descricao, tipo, peso);
+                avaliacao.atribuirNota(nota);
+                Runnable desfazer = avaliacaoTurma.lancarAvaliacao(aluno, avaliacao);
+                
+                // Salvar no repositório; se falhar, a nota sai da turma
+                try {
+                    avaliacaoRepository.salvarAvaliacaoTurma(avaliacaoTurma);
+                } catch (RuntimeException e) {
+                    desfazer.run();
+                    throw e;
+                }
+            } finally {
+                trava.unlock();
             }
             
-            // Criar e adicionar a nova avaliação
-            Avaliacao avaliacao = new Avaliacao(descricao, tipo, peso);
-            avaliacao.atribuirNota(nota);
-            avaliacaoAluno.adicionarAvaliacao(avaliacao);
-            
-            // Salvar no repositório
-            avaliacaoRepository.salvarAvaliacaoTurma(avaliacaoTurma);
-            
             String mensagem = String.format("Avaliação '%s' registrada para aluno %s na turma %s", 
                                           descricao, aluno.getNome(), turma.getCodigo());
             logger.sucesso(mensagem);
@@ -1504,27 +6018,107 @@ class SistemaEducacionalService {
         }
     }
     
+    // Registro de várias notas de uma vez: as entradas são agrupadas por turma e cada turma e suas
+    // avaliações são resolvidas uma única vez; cada turma alterada é salva uma vez, ao fim do grupo.
+    // O resultado de índice i corresponde ao lançamento i.
+    public List<ResultadoOperacao> registrarAvaliacoes(List<LancamentoAvaliacao> lancamentos) {
+        ResultadoOperacao[] resultados = new ResultadoOperacao[lancamentos.size()];
+        Map<String, List<Integer>> porTurma = new LinkedHashMap<>();
+        for (int i = 0; i < lancamentos.size(); i++) {
+            LancamentoAvaliacao lancamento = lancamentos.get(i);
+            ResultadoValidacao validacao = validador.validarAvaliacao(
+                lancamento.getNota(), lancamento.getPeso(), lancamento.getTipo());
+            if (!validacao.isValido()) {
+                resultados[i] = ResultadoOperacao.erro("Erro na avaliação: " +
+                    String.join(", ", validacao.getDetalhes()));
+            } else {
+                porTurma.computeIfAbsent(lancamento.getCodigoTurma(), codigo -> new ArrayList<>()).add(i);
+            }
+        }
+        
+        porTurma.forEach((codigoTurma, indices) ->
+            registrarAvaliacoesDaTurma(codigoTurma, indices, lancamentos, resultados));
+        return Arrays.asList(resultados);
+    }
+    
+    private void registrarAvaliacoesDaTurma(String codigoTurma, List<Integer> indices,
+                                            List<LancamentoAvaliacao> lancamentos, ResultadoOperacao[] resultados) {
+        Turma turma = turmaRepository.buscarPorId(codigoTurma);
+        if (turma == null) {
+            indices.forEach(i -> resultados[i] = ResultadoOperacao.erro("Turma não encontrada"));
+            return;
+        }
+        
+        ReentrantLock trava = travasAvaliacoes.para(turma.getCodigo());
+        trava.lock();
+        List<Runnable> desfazer = new ArrayList<>();
+        try {
+            AvaliacaoTurma avaliacaoTurma = avaliacoesVigentes(turma);
+            
+            int registradas = 0;
+            for (int i : indices) {
+                LancamentoAvaliacao lancamento = lancamentos.get(i);
+                Aluno aluno = turma.buscarAluno(lancamento.getMatriculaAluno());
+                if (aluno == null) {
+                    Aluno cadastrado = alunoRepository.buscarPorId(lancamento.getMatriculaAluno());
+                    resultados[i] = ResultadoOperacao.erro(cadastrado == null ? "Aluno não encontrado" :
+                        String.format("Aluno %s não está matriculado na turma %s", cadastrado.getNome(), turma.getCodigo()));
+                    continue;
+                }
+                
+                Avaliacao avaliacao = new Avaliacao(lancamento.getDescricao(), lancamento.getTipo(), lancamento.getPeso());
+                avaliacao.atribuirNota(lancamento.getNota());
+                desfazer.add(avaliacaoTurma.lancarAvaliacao(aluno, avaliacao));
+                resultados[i] = ResultadoOperacao.sucesso(String.format("Avaliação '%s' registrada para aluno %s na turma %s",
+                    lancamento.getDescricao(), aluno.getNome(), turma.getCodigo()));
+                registradas++;
+            }
+            
+            if (registradas > 0) {
+                avaliacaoRepository.salvarAvaliacaoTurma(avaliacaoTurma);
+                logger.sucesso(String.format("%d avaliações registradas na turma %s", registradas, turma.getCodigo()));
+            }
+        } catch (Exception e) {
+            logger.erro("Erro ao registrar avaliações: " + e.getMessage());
+            // Nada do grupo foi salvo: os lançamentos já feitos são desfeitos, do último ao primeiro, e também falharam
+            for (int j = desfazer.size() - 1; j >= 0; j--) {
+                desfazer.get(j).run();
+            }
+            for (int i : indices) {
+                if (resultados[i] == null || resultados[i].isSucesso()) {
+                    resultados[i] = ResultadoOperacao.erro("Erro ao registrar avaliação: " + e.getMessage());
+                }
+            }
+        } finally {
+            trava.unlock();
+        }
+    }
+    
+    // Notas são lançadas direto nas avaliações vigentes da turma e desfeitas se o salvamento falhar; até lá
+    // os leitores já as veem. Chamado com a trava da turma, para que dois registros simultâneos não criem
+    // cada um a sua avaliação da turma nem desfaçam um lançamento no meio do outro.
+    private AvaliacaoTurma avaliacoesVigentes(Turma turma) {
+        AvaliacaoTurma vigente = avaliacaoRepository.buscarAvaliacaoTurma(turma.getCodigo());
+        return vigente == null ? new AvaliacaoTurma(turma) : vigente;
+    }
+    
     public List<Relatorio> gerarRelatoriosCompletos() {
         List<Relatorio> relatorios = new ArrayList<>();
         
         // Gerar relatórios de usuários
-        for (Usuario usuario : usuarioRepository.listarTodos()) {
+        usuarioRepository.forEach(usuario -> {
             if (usuario instanceof AlunoAutenticavel) {
                 relatorios.add(new RelatorioAluno((AlunoAutenticavel) usuario));
             } else if (usuario instanceof ProfessorAutenticavel) {
                 relatorios.add(new RelatorioProfessor((ProfessorAutenticavel) usuario));
             }
-        }
+        });
         
         // Gerar relatórios de cursos
-        for (Curso curso : cursoRepository.listarTodos()) {
-            relatorios.add(new RelatorioCurso(curso));
-        }
+        cursoRepository.forEach(curso -> relatorios.add(new RelatorioCurso(curso)));
         
         // Gerar relatórios de turmas
-        for (Turma turma : turmaRepository.listarTodos()) {
-            relatorios.add(new RelatorioTurma(turma));
-        }
+        turmaRepository.forEach(turma -> relatorios.add(new RelatorioTurma(turma)));
         
         // Gerar relatórios de avaliações
         for (AvaliacaoTurma avaliacaoTurma : avaliacaoRepository.listarAvaliacoesTurma()) {
@@ -1549,6 +6143,36 @@ class SistemaEducacionalService {
     public TurmaRepository getTurmaRepository() { return turmaRepository; }
     public AvaliacaoRepository getAvaliacaoRepository() { return avaliacaoRepository; }
     public ValidadorSistema getValidador() { return validador; }
+    
+    // Caches de entidades dos armazenamentos externos (vazio quando os dados estão todos em memória)
+    public List<CacheEntidades<?>> getCachesEntidades() {
+        if (armazenamentoJdbc != null) {
+            return armazenamentoJdbc.getCaches();
+        }
+        if (alunoRepository instanceof AlunoRepositoryDisco && ((AlunoRepositoryDisco) alunoRepository).getCache() != null) {
+            return List.of(((AlunoRepositoryDisco) alunoRepository).getCache());
+        }
+        return List.of();
+    }
+    
+    public void fechar() {
+        if (armazenamentoJdbc != null) {
+            armazenamentoJdbc.close();
+        }
+        if (alunoRepository instanceof Closeable) {
+            try {
+                ((Closeable) alunoRepository).close();
+            } catch (IOException e) {
+                logger.erro("Erro ao fechar o repositório de alunos: " + e.getMessage());
+            }
+        }
+        if (persistencia == null) return;
+        try {
+            persistencia.close();
+        } catch (IOException e) {
+            logger.erro("Erro ao fechar os dados persistidos: " + e.getMessage());
+        }
+    }
 }
 
 class ResultadoOperacao {
@@ -1579,6 +6203,33 @@ class ResultadoOperacao {
     public Object getDados() { return dados; }
 }
 
+// Uma nota a registrar com SistemaEducacionalService.registrarAvaliacoes
+class LancamentoAvaliacao {
+    private final String codigoTurma;
+    private final String matriculaAluno;
+    private final String descricao;
+    private final String tipo;
+    private final double peso;
+    private final double nota;
+    
+    public LancamentoAvaliacao(String codigoTurma, String matriculaAluno, String descricao,
+                               String tipo, double peso, double nota) {
+        this.codigoTurma = codigoTurma;
+        this.matriculaAluno = matriculaAluno;
+        this.descricao = descricao;
+        this.tipo = tipo;
+        this.peso = peso;
+        this.nota = nota;
+    }
+    
+    public String getCodigoTurma() { return codigoTurma; }
+    public String getMatriculaAluno() { return matriculaAluno; }
+    public String getDescricao() { return descricao; }
+    public String getTipo() { return tipo; }
+    public double getPeso() { return peso; }
+    public double getNota() { return nota; }
+}
+
 // ==================== UI (USER INTERFACE) ====================
 class ConsoleLogger implements Logger {
     @Override
@@ -1609,6 +6260,15 @@ class ConsoleLogger implements Logger {
     }
 }
 
+// Logger que descarta mensagens (usado em cargas de teste com muitas operações)
+class LoggerSilencioso implements Logger {
+    @Override public void info(String mensagem) { }
+    @Override public void erro(String mensagem) { }
+    @Override public void sucesso(String mensagem) { }
+    @Override public void debug(String mensagem) { }
+    @Override public void titulo(String mensagem) { }
+}
+
 class ConsoleOutputHandler implements OutputHandler {
     private final Logger logger;
     
@@ -1756,6 +6416,8 @@ class ConsoleInputHandler implements InputHandler {
 }
 
 class MenuController {
+    private static final int TAMANHO_PAGINA = 20;
+    
     private final SistemaEducacionalService service;
     private final OutputHandler output;
     private final InputHandler input;
@@ -1826,16 +6488,13 @@ class MenuController {
         output.mostrarMensagem("📋 GERENCIAMENTO DE ALUNOS");
         output.mostrarSeparador();
         
-        List<Aluno> alunos = service.getAlunoRepository().listarTodos();
-        if (alunos.isEmpty()) {
+        AlunoRepository alunoRepository = service.getAlunoRepository();
+        if (alunoRepository.count() == 0) {
             output.mostrarMensagem("Nenhum aluno cadastrado.");
         } else {
-            output.mostrarMensagem("Alunos cadastrados:");
-            for (int i = 0; i < alunos.size(); i++) {
-                Aluno a = alunos.get(i);
-                output.mostrarMensagem(String.format("%d. %s - %s - %s", 
-                    i + 1, a.getNome(), a.getMatricula(), a.getCurso()));
-            }
+            exibirPaginado("Alunos cadastrados:", 
+                cursor -> alunoRepository.listarPagina(cursor, TAMANHO_PAGINA),
+                a -> String.format("%s - %s - %s", a.getNome(), a.getMatricula(), a.getCurso()));
         }
         
         output.mostrarSeparador();
@@ -1843,6 +6502,35 @@ class MenuController {
                                            "Iniciando cadastro...", "Retornando ao menu...");
         if (adicionar) {
             cadastrarAluno();
+            return;
+        }
+        
+        boolean importar = input.lerBoolean("Deseja importar alunos de um arquivo CSV?",
+                                          "Iniciando importação...", "Retornando ao menu...");
+        if (importar) {
+            importarAlunos();
+        }
+    }
+    
+    private void importarAlunos() {
+        output.mostrarMensagem("\n📥 IMPORTAÇÃO DE ALUNOS (CSV: nome, matrícula, curso)");
+        
+        Path arquivo = Paths.get(input.lerString("Caminho do arquivo CSV"));
+        if (!Files.isRegularFile(arquivo)) {
+            output.mostrarErro("Arquivo não encontrado: " + arquivo);
+            return;
+        }
+        Path arquivoErros = arquivo.resolveSibling(arquivo.getFileName() + ".erros.csv");
+        
+        ResultadoOperacao resultado = service.importarAlunosCsv(arquivo, arquivoErros);
+        if (resultado.isSucesso()) {
+            ResumoImportacao resumo = (ResumoImportacao) resultado.getDados();
+            output.mostrarSucesso(resultado.getMensagem());
+            if (resumo.getArquivoErros() != null) {
+                output.mostrarMensagem("Linhas rejeitadas e motivos em: " + resumo.getArquivoErros());
+            }
+        } else {
+            output.mostrarErro(resultado.getMensagem());
         }
     }
     
@@ -1883,12 +6571,21 @@ class MenuController {
                                                   "Criando usuário...", "Continuando...");
             if (criarUsuario) {
                 String email = input.lerString("Email");
-                String login = input.lerString("Login");
-                String senha = input.lerString("Senha");
-                
-                AlunoAutenticavel alunoAuth = new AlunoAutenticavel(nome, email, matricula, login, senha);
-                service.getUsuarioRepository().salvar(alunoAuth);
-                output.mostrarSucesso("Usuário autenticável criado com sucesso!");
+                if (service.getUsuarioRepository().existe(email)) {
+                    output.mostrarErro(String.format("Já existe um usuário com o email %s", email));
+                } else {
+                    String login = input.lerString("Login");
+                    String senha = input.lerString("Senha");
+                    
+                    AlunoAutenticavel alunoAuth = new AlunoAutenticavel(nome, email, matricula, login, senha);
+                    try {
+                        service.getUsuarioRepository().salvar(alunoAuth);
+                        output.mostrarSucesso("Usuário autenticável criado com sucesso!");
+                    } catch (IllegalStateException e) {
+                        // Outro usuário cadastrou o e-mail depois da verificação acima
+                        output.mostrarErro(e.getMessage());
+                    }
+                }
             }
         } else {
             output.mostrarErro(resultado.getMensagem());
@@ -1902,8 +6599,7 @@ class MenuController {
         output.mostrarMensagem("📋 GERENCIAMENTO DE PROFESSORES");
         output.mostrarSeparador();
         
-        List<Usuario> usuarios = service.getUsuarioRepository().listarTodos();
-        List<ProfessorAutenticavel> professores = usuarios.stream()
+        List<ProfessorAutenticavel> professores = service.getUsuarioRepository().stream()
             .filter(u -> u instanceof ProfessorAutenticavel)
             .map(u -> (ProfessorAutenticavel) u)
             .toList();
@@ -1933,14 +6629,23 @@ class MenuController {
         String especialidade = input.lerString("Especialidade");
         String registro = input.lerString("Registro");
         String email = input.lerString("Email");
+        if (service.getUsuarioRepository().existe(email)) {
+            output.mostrarErro(String.format("Já existe um usuário com o email %s", email));
+            input.lerString("\nPressione Enter para continuar...");
+            return;
+        }
         String login = input.lerString("Login");
         String senha = input.lerString("Senha");
         
         ProfessorAutenticavel professor = new ProfessorAutenticavel(
             nome, email, especialidade, registro, login, senha);
         
-        service.getUsuarioRepository().salvar(professor);
-        output.mostrarSucesso("Professor cadastrado com sucesso!");
+        try {
+            service.getUsuarioRepository().salvar(professor);
+            output.mostrarSucesso("Professor cadastrado com sucesso!");
+        } catch (IllegalStateException e) {
+            output.mostrarErro(e.getMessage());
+        }
         
         input.lerString("\nPressione Enter para continuar...");
     }
@@ -2048,8 +6753,7 @@ class MenuController {
             return;
         }
         
-        List<Usuario> usuarios = service.getUsuarioRepository().listarTodos();
-        List<ProfessorAutenticavel> professores = usuarios.stream()
+        List<ProfessorAutenticavel> professores = service.getUsuarioRepository().stream()
             .filter(u -> u instanceof ProfessorAutenticavel)
             .map(u -> (ProfessorAutenticavel) u)
             .toList();
@@ -2129,38 +6833,36 @@ class MenuController {
     }
     
     private void matricularAlunosNaTurma(Turma turma) {
-        List<Aluno> alunos = service.getAlunoRepository().listarTodos();
-        if (alunos.isEmpty()) {
+        AlunoRepository alunoRepository = service.getAlunoRepository();
+        if (alunoRepository.count() == 0) {
             output.mostrarMensagem("Nenhum aluno disponível para matrícula.");
             return;
         }
         
-        output.mostrarMensagem("\nAlunos disponíveis:");
-        for (int i = 0; i < alunos.size(); i++) {
-            Aluno aluno = alunos.get(i);
-            boolean jaMatriculado = turma.getAlunos().stream()
-                .anyMatch(a -> a.getMatricula().equals(aluno.getMatricula()));
-            
-            String status = jaMatriculado ? " [JÁ MATRICULADO]" : "";
-            output.mostrarMensagem(String.format("%d. %s - %s%s", 
-                i + 1, aluno.getNome(), aluno.getCurso(), status));
+        String nomeCurso = turma.getCurso().getNome();
+        boolean todosDoCurso = input.lerBoolean(
+            String.format("Matricular de uma vez todos os alunos do curso %s?", nomeCurso),
+            "Matriculando alunos do curso...", "Seleção individual de alunos...");
+        if (todosDoCurso) {
+            mostrarResultadoMatriculas(service.matricularAlunosDoCursoEmTurma(turma.getCodigo(), nomeCurso));
+            return;
         }
         
         String continuar = "S";
         while (continuar.equalsIgnoreCase("S")) {
-            int indexAluno = input.lerOpcao("\nNúmero do aluno para matricular (0 para cancelar)", 
-                                          0, alunos.size()) - 1;
+            Aluno alunoSelecionado = selecionarPaginado("\nAlunos disponíveis:",
+                cursor -> alunoRepository.listarPagina(cursor, TAMANHO_PAGINA),
+                aluno -> {
+                    String status = turma.contemAluno(aluno.getMatricula()) ? " [JÁ MATRICULADO]" : "";
+                    return String.format("%s - %s%s", aluno.getNome(), aluno.getCurso(), status);
+                },
+                "Número do aluno para matricular");
             
-            if (indexAluno == -1) {
+            if (alunoSelecionado == null) {
                 break;
             }
             
-            Aluno alunoSelecionado = alunos.get(indexAluno);
-            
-            boolean jaMatriculado = turma.getAlunos().stream()
-                .anyMatch(a -> a.getMatricula().equals(alunoSelecionado.getMatricula()));
-            
-            if (jaMatriculado) {
+            if (turma.contemAluno(alunoSelecionado.getMatricula())) {
                 output.mostrarErro("Este aluno já está matriculado nesta turma!");
             } else {
                 ResultadoValidacao validacao = service.getValidador()
@@ -2180,6 +6882,20 @@ class MenuController {
         }
     }
     
+    @SuppressWarnings("unchecked")
+    private void mostrarResultadoMatriculas(ResultadoOperacao resultado) {
+        if (!resultado.isSucesso()) {
+            output.mostrarErro(resultado.getMensagem());
+            return;
+        }
+        output.mostrarSucesso(resultado.getMensagem());
+        ((Map<String, ResultadoOperacao>) resultado.getDados()).forEach((matricula, resultadoAluno) -> {
+            if (!resultadoAluno.isSucesso()) {
+                output.mostrarMensagem(String.format("%s: %s", matricula, resultadoAluno.getMensagem()));
+            }
+        });
+    }
+    
     private void gerenciarAvaliacoes() {
         output.limparTela();
         output.mostrarMensagem("📊 GERENCIAMENTO DE AVALIAÇÕES");
@@ -2204,37 +6920,33 @@ class MenuController {
     private void registrarAvaliacao() {
         output.mostrarMensagem("\n📝 REGISTRO DE NOVA AVALIAÇÃO");
         
-        List<Turma> turmas = service.getTurmaRepository().listarTodos();
-        if (turmas.isEmpty()) {
+        TurmaRepository turmaRepository = service.getTurmaRepository();
+        if (turmaRepository.count() == 0) {
             output.mostrarErro("Nenhuma turma disponível para registrar avaliações.");
             return;
         }
         
-        output.mostrarMensagem("\nTurmas disponíveis:");
-        for (int i = 0; i < turmas.size(); i++) {
-            Turma t = turmas.get(i);
-            output.mostrarMensagem(String.format("%d. %s - %s", 
-                i + 1, t.getCodigo(), t.getCurso().getNome()));
+        Turma turmaSelecionada = selecionarPaginado("\nTurmas disponíveis:",
+            cursor -> turmaRepository.listarPagina(cursor, TAMANHO_PAGINA),
+            t -> String.format("%s - %s", t.getCodigo(), t.getCurso().getNome()),
+            "Selecione a turma");
+        if (turmaSelecionada == null) {
+            return;
         }
         
-        int indexTurma = input.lerOpcao("Selecione a turma", 1, turmas.size()) - 1;
-        Turma turmaSelecionada = turmas.get(indexTurma);
-        
         if (turmaSelecionada.getQuantidadeAlunos() == 0) {
             output.mostrarErro("Esta turma não tem alunos matriculados.");
             return;
         }
         
-        output.mostrarMensagem("\nAlunos da turma:");
-        List<Aluno> alunosTurma = turmaSelecionada.getAlunos();
-        for (int i = 0; i < alunosTurma.size(); i++) {
-            Aluno a = alunosTurma.get(i);
-            output.mostrarMensagem(String.format("%d. %s", i + 1, a.getNome()));
+        Aluno alunoSelecionado = selecionarPaginado("\nAlunos da turma:",
+            cursor -> turmaSelecionada.listarPaginaAlunos(cursor, TAMANHO_PAGINA),
+            Aluno::getNome,
+            "Selecione o aluno");
+        if (alunoSelecionado == null) {
+            return;
         }
         
-        int indexAluno = input.lerOpcao("Selecione o aluno", 1, alunosTurma.size()) - 1;
-        Aluno alunoSelecionado = alunosTurma.get(indexAluno);
-        
         String descricao = input.lerString("Descrição da avaliação");
         String tipo = input.lerString("Tipo (Prova, Trabalho, Seminário, etc.)");
         double peso = input.lerDouble("Peso (0.01 a 1.0)");
@@ -2293,22 +7005,20 @@ class MenuController {
     private void verAvaliacoesAluno() {
         output.mostrarMensagem("\n📋 VISUALIZAR AVALIAÇÕES DO ALUNO");
         
-        List<Aluno> alunos = service.getAlunoRepository().listarTodos();
-        if (alunos.isEmpty()) {
+        AlunoRepository alunoRepository = service.getAlunoRepository();
+        if (alunoRepository.count() == 0) {
             output.mostrarErro("Nenhum aluno disponível.");
             return;
         }
         
-        output.mostrarMensagem("\nAlunos disponíveis:");
-        for (int i = 0; i < alunos.size(); i++) {
-            Aluno a = alunos.get(i);
-            output.mostrarMensagem(String.format("%d. %s - %s", 
-                i + 1, a.getNome(), a.getMatricula()));
+        Aluno alunoSelecionado = selecionarPaginado("\nAlunos disponíveis:",
+            cursor -> alunoRepository.listarPagina(cursor, TAMANHO_PAGINA),
+            a -> String.format("%s - %s", a.getNome(), a.getMatricula()),
+            "Selecione o aluno");
+        if (alunoSelecionado == null) {
+            return;
         }
         
-        int indexAluno = input.lerOpcao("Selecione o aluno", 1, alunos.size()) - 1;
-        Aluno alunoSelecionado = alunos.get(indexAluno);
-        
         // Buscar aluno autenticável
         List<AlunoAutenticavel> alunosAuth = service.getUsuarioRepository()
             .listarAlunosAutenticaveis();
@@ -2331,6 +7041,70 @@ class MenuController {
         input.lerString("\nPressione Enter para continuar...");
     }
     
+    // Exibe uma listagem página a página, perguntando antes de carregar a próxima
+    private <T> void exibirPaginado(String titulo, Function<String, Pagina<T>> carregarPagina,
+                                    Function<T, String> formatar) {
+        output.mostrarMensagem(titulo);
+        String cursor = null;
+        int numero = 0;
+        while (true) {
+            Pagina<T> pagina = carregarPagina.apply(cursor);
+            for (T item : pagina.getItens()) {
+                output.mostrarMensagem(String.format("%d. %s", ++numero, formatar.apply(item)));
+            }
+            if (!pagina.temProxima() 
+                    || !input.lerBoolean("Ver próxima página?", "Carregando...", "Fim da listagem.")) {
+                return;
+            }
+            cursor = pagina.getProximoCursor();
+        }
+    }
+    
+    // Lista itens página a página e devolve o escolhido, ou null se o usuário cancelar
+    private <T> T selecionarPaginado(String titulo, Function<String, Pagina<T>> carregarPagina,
+                                     Function<T, String> formatar, String prompt) {
+        List<String> anteriores = new ArrayList<>();
+        String cursor = null;
+        while (true) {
+            Pagina<T> pagina = carregarPagina.apply(cursor);
+            List<T> itens = pagina.getItens();
+            
+            output.mostrarMensagem(titulo);
+            // Os itens podem ter sido removidos desde a contagem feita pelo chamador
+            if (itens.isEmpty()) {
+                output.mostrarErro("Nenhum item disponível.");
+                return null;
+            }
+            for (int i = 0; i < itens.size(); i++) {
+                output.mostrarMensagem(String.format("%d. %s", i + 1, formatar.apply(itens.get(i))));
+            }
+            
+            String navegacao = (pagina.temProxima() ? "P = próxima, " : "")
+                + (anteriores.isEmpty() ? "" : "A = anterior, ") + "0 = cancelar";
+            String resposta = input.lerString(String.format("%s (1-%d, %s)", prompt, itens.size(), navegacao))
+                .trim().toUpperCase();
+            
+            if (resposta.equals("P") && pagina.temProxima()) {
+                anteriores.add(cursor);
+                cursor = pagina.getProximoCursor();
+            } else if (resposta.equals("A") && !anteriores.isEmpty()) {
+                cursor = anteriores.remove(anteriores.size() - 1);
+            } else if (resposta.equals("0")) {
+                return null;
+            } else {
+                try {
+                    int indice = Integer.parseInt(resposta) - 1;
+                    if (indice >= 0 && indice < itens.size()) {
+                        return itens.get(indice);
+                    }
+                } catch (NumberFormatException e) {
+                    // resposta inválida: cai na mensagem abaixo
+                }
+                output.mostrarErro("Opção inválida!");
+            }
+        }
+    }
+    
     private void gerenciarRelatorios() {
         output.limparTela();
         output.mostrarMensagem("📄 GERENCIAMENTO DE RELATÓRIOS");
@@ -2390,8 +7164,7 @@ class MenuController {
         output.limparTela();
         output.mostrarMensagem("👨‍🏫 RELATÓRIOS DE PROFESSORES");
         
-        List<Usuario> usuarios = service.getUsuarioRepository().listarTodos();
-        List<ProfessorAutenticavel> professores = usuarios.stream()
+        List<ProfessorAutenticavel> professores = service.getUsuarioRepository().stream()
             .filter(u -> u instanceof ProfessorAutenticavel)
             .map(u -> (ProfessorAutenticavel) u)
             .toList();
@@ -2507,10 +7280,10 @@ class MenuController {
         output.mostrarMensagem("📈 ESTATÍSTICAS DO SISTEMA");
         output.mostrarSeparador();
         
-        int totalAlunos = service.getAlunoRepository().listarTodos().size();
-        int totalUsuarios = service.getUsuarioRepository().listarTodos().size();
-        int totalCursos = service.getCursoRepository().listarTodos().size();
-        int totalTurmas = service.getTurmaRepository().listarTodos().size();
+        int totalAlunos = service.getAlunoRepository().count();
+        int totalUsuarios = service.getUsuarioRepository().count();
+        int totalCursos = service.getCursoRepository().count();
+        int totalTurmas = service.getTurmaRepository().count();
         int totalAvaliacoes = service.getAvaliacaoRepository().getTotalAvaliacoes();
         
         output.mostrarMensagem(String.format("Total de alunos: %d", totalAlunos));
@@ -2519,10 +7292,10 @@ class MenuController {
         output.mostrarMensagem(String.format("Total de turmas: %d", totalTurmas));
         output.mostrarMensagem(String.format("Total de avaliações: %d", totalAvaliacoes));
         
-        List<Usuario> usuarios = service.getUsuarioRepository().listarTodos();
-        long alunosAuth = usuarios.stream().filter(u -> u instanceof AlunoAutenticavel).count();
-        long professores = usuarios.stream().filter(u -> u instanceof ProfessorAutenticavel).count();
-        long admins = usuarios.stream().filter(u -> u instanceof Administrador).count();
+        UsuarioRepository usuarioRepository = service.getUsuarioRepository();
+        long alunosAuth = usuarioRepository.stream().filter(u -> u instanceof AlunoAutenticavel).count();
+        long professores = usuarioRepository.stream().filter(u -> u instanceof ProfessorAutenticavel).count();
+        long admins = usuarioRepository.stream().filter(u -> u instanceof Administrador).count();
         
         output.mostrarSeparador();
         output.mostrarMensagem("\nDistribuição de usuários:");
@@ -2530,10 +7303,10 @@ class MenuController {
         output.mostrarMensagem(String.format("Professores: %d", professores));
         output.mostrarMensagem(String.format("Administradores: %d", admins));
         
-        List<Curso> cursos = service.getCursoRepository().listarTodos();
-        long cursosPresenciais = cursos.stream().filter(c -> c instanceof CursoPresencial).count();
-        long cursosEAD = cursos.stream().filter(c -> c instanceof CursoEAD).count();
-        long cursosRegulares = cursos.size() - cursosPresenciais - cursosEAD;
+        CursoRepository cursoRepository = service.getCursoRepository();
+        long cursosPresenciais = cursoRepository.stream().filter(c -> c instanceof CursoPresencial).count();
+        long cursosEAD = cursoRepository.stream().filter(c -> c instanceof CursoEAD).count();
+        long cursosRegulares = cursoRepository.count() - cursosPresenciais - cursosEAD;
         
         output.mostrarSeparador();
         output.mostrarMensagem("\nDistribuição de cursos:");
@@ -2541,6 +7314,19 @@ class MenuController {
         output.mostrarMensagem(String.format("Cursos EAD: %d", cursosEAD));
         output.mostrarMensagem(String.format("Cursos regulares: %d", cursosRegulares));
         
+        List<CacheEntidades<?>> caches = service.getCachesEntidades();
+        if (!caches.isEmpty()) {
+            output.mostrarSeparador();
+            output.mostrarMensagem("\nCache de entidades:");
+            for (CacheEntidades<?> cache : caches) {
+                long consultas = cache.getAcertos() + cache.getFaltas();
+                output.mostrarMensagem(String.format("%s: %d itens, %.1f de %.1f MB | acertos: %d, faltas: %d (%.1f%% de acerto), descartes: %d",
+                    cache.getNome(), cache.getQuantidade(), cache.getBytesEmUso() / 1048576.0, cache.getLimiteBytes() / 1048576.0,
+                    cache.getAcertos(), cache.getFaltas(), consultas == 0 ? 0.0 : cache.getAcertos() * 100.0 / consultas,
+                    cache.getRemocoes()));
+            }
+        }
+        
         input.lerString("\nPressione Enter para continuar...");
     }
     
@@ -2556,9 +7342,10 @@ class MenuController {
         output.mostrarMensagem("4. Testar criação de turma sem professor (FALHA)");
         output.mostrarMensagem("5. Testar registro de avaliação com nota inválida (FALHA)");
         output.mostrarMensagem("6. Testar matrícula de aluno já matriculado (FALHA)");
-        output.mostrarMensagem("7. Voltar");
+        output.mostrarMensagem("7. Testar operações paralelas nos repositórios (SUCESSO)");
+        output.mostrarMensagem("8. Voltar");
         
-        int opcao = input.lerOpcao("Escolha um cenário", 1, 7);
+        int opcao = input.lerOpcao("Escolha um cenário", 1, 8);
         
         switch (opcao) {
             case 1 -> testarCadastroAlunoSucesso();
@@ -2567,7 +7354,8 @@ class MenuController {
             case 4 -> testarCriacaoTurmaSemProfessor();
             case 5 -> testarAvaliacaoNotaInvalida();
             case 6 -> testarMatriculaDuplicada();
-            case 7 -> { return; }
+            case 7 -> testarConcorrenciaRepositorios();
+            case 8 -> { return; }
         }
         
         input.lerString("\nPressione Enter para continuar...");
@@ -2620,8 +7408,7 @@ class MenuController {
         output.mostrarMensagem("\n❌ CENÁRIO 3: Criação de turma sem cursos cadastrados");
         
         // Temporariamente remover cursos para testar
-        List<Curso> cursos = service.getCursoRepository().listarTodos();
-        boolean haviaCursos = !cursos.isEmpty();
+        boolean haviaCursos = service.getCursoRepository().count() > 0;
         
         output.mostrarMensagem("Situação: " + (haviaCursos ? "Há cursos cadastrados" : "Não há cursos cadastrados"));
         
@@ -2734,6 +7521,20 @@ class MenuController {
         }
     }
     
+    private void testarConcorrenciaRepositorios() {
+        output.mostrarMensagem("\n✅ CENÁRIO 7: salvar/remover/buscarPorId em paralelo nos cinco repositórios");
+        int threads = TesteConcorrenciaRepositorios.THREADS_PADRAO;
+        int porThread = TesteConcorrenciaRepositorios.POR_THREAD_PADRAO;
+        output.mostrarMensagem(String.format("%d threads x %d entidades em repositórios isolados", threads, porThread));
+        
+        List<String> falhas = new TesteConcorrenciaRepositorios(threads, porThread).executar();
+        if (falhas.isEmpty()) {
+            output.mostrarSucesso("✅ TESTE PASSOU: nenhuma atualização perdida e índices consistentes");
+        } else {
+            output.mostrarErro("❌ TESTE FALHOU: " + falhas.size() + " inconsistência(s). Primeira: " + falhas.get(0));
+        }
+    }
+    
     private void sair() {
         output.mostrarMensagem("\nObrigado por usar o Sistema de Gestão Educacional!");
         output.mostrarMensagem("Desenvolvido por: Jean Ricardo Land Miranda");
@@ -2744,14 +7545,69 @@ class MenuController {
 
 // ==================== MAIN APPLICATION ====================
 public class SistemaGestaoEducacional {
+    // Taxa de falso positivo dos filtros de Bloom dos armazenamentos externos (ex.: 0.001)
+    private static double taxaFalsoPositivo() {
+        String valor = System.getProperty("educonnect.bloom.taxaFalsoPositivo");
+        return valor == null ? FiltroExistencia.TAXA_FALSO_POSITIVO_PADRAO : Double.parseDouble(valor);
+    }
+    
+    // Limite do cache de entidades dos armazenamentos externos; 0 desativa o cache
+    private static long limiteCache() {
+        return Long.getLong("educonnect.cache.bytes", CacheEntidades.LIMITE_BYTES_PADRAO);
+    }
+    
+    private static ArmazenamentoJdbc abrirBancoDeDados(String url, Logger logger) {
+        try {
+            ArmazenamentoJdbc armazenamento = ArmazenamentoJdbc.abrir(url,
+                System.getProperty("educonnect.jdbc.usuario", "sa"),
+                System.getProperty("educonnect.jdbc.senha", ""),
+                Integer.getInteger("educonnect.jdbc.pool", ArmazenamentoJdbc.TAMANHO_POOL_PADRAO),
+                taxaFalsoPositivo(), logger);
+            if (limiteCache() > 0) {
+                armazenamento.habilitarCache(limiteCache());
+            }
+            return armazenamento;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Não foi possível conectar ao banco de dados " + url, e);
+        }
+    }
+    
+    private static AlunoRepositoryDisco abrirAlunosEmDisco(String diretorio, Logger logger) {
+        try {
+            AlunoRepositoryDisco repositorio = new AlunoRepositoryDisco(Paths.get(diretorio),
+                Integer.getInteger("educonnect.alunos.paginasCache", AlunoRepositoryDisco.PAGINAS_EM_CACHE_PADRAO),
+                taxaFalsoPositivo(), logger);
+            if (limiteCache() > 0) {
+                repositorio.habilitarCache(limiteCache());
+            }
+            return repositorio;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível abrir o índice de alunos em " + diretorio, e);
+        }
+    }
+    
     public static void main(String[] args) {
         // Configurar dependências (Dependency Injection)
         Logger logger = new ConsoleLogger();
         OutputHandler output = new ConsoleOutputHandler(logger);
         InputHandler input = new ConsoleInputHandler();
         
-        // Criar serviços
-        SistemaEducacionalService service = new SistemaEducacionalService(logger);
+        // Criar serviços (com diretório de dados, o estado é persistido em journal;
+        // com uma URL JDBC, os dados ficam no banco de dados)
+        String diretorioDados = args.length > 0 ? args[0] : System.getProperty("educonnect.dados");
+        String urlJdbc = System.getProperty("educonnect.jdbc.url");
+        String diretorioAlunos = System.getProperty("educonnect.alunos.disco");
+        boolean cargaSobDemanda = Boolean.getBoolean("educonnect.carga.sobDemanda");
+        SistemaEducacionalService service;
+        if (urlJdbc != null) {
+            service = new SistemaEducacionalService(logger, abrirBancoDeDados(urlJdbc, logger));
+        } else if (diretorioDados != null) {
+            service = new SistemaEducacionalService(logger, Paths.get(diretorioDados), cargaSobDemanda);
+        } else if (diretorioAlunos != null) {
+            service = new SistemaEducacionalService(logger, abrirAlunosEmDisco(diretorioAlunos, logger));
+        } else {
+            service = new SistemaEducacionalService(logger);
+        }
         
         // Criar e iniciar controlador do menu
         MenuController menuController = new MenuController(service, output, input);
@@ -2759,6 +7615,7 @@ public class SistemaGestaoEducacional {
         try {
             menuController.iniciar();
         } finally {
+            service.fechar();
             if (input instanceof ConsoleInputHandler) {
                 ((ConsoleInputHandler) input).fechar();
             }